@@ -6,4 +6,11 @@ public class AppConstants {
     public static final String SORT_CATEGORIES_BY = "categoryId";
     public static final String SORT_PRODUCTS_BY = "productId";
     public static final String SORT_DIRECTION = "ASC";
+    public static final String EXPORT_FORMAT = "ndjson";
+    // Rows fetched per round trip by the export streams
+    public static final String EXPORT_FETCH_SIZE = "500";
+    public static final String IMPORT_FORMAT = "ndjson";
+    // Rows parsed together and written in one transaction and one JDBC batch by the imports
+    public static final int IMPORT_CHUNK_SIZE = 1000;
+    public static final int IMPORT_MAX_ERRORS = 1000;
 }
@@ -0,0 +1,38 @@
+package com.ecommerce.project.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.concurrent.Callable;
+
+// Streamed exports take as long as the tables they dump. They get their own async timeout, every other async request
+// keeps the default one.
+@Configuration
+public class ExportConfig implements WebMvcConfigurer {
+    private static final String EXPORT_PATH = "/api/admin/export/";
+
+    @Value("${spring.app.exportTimeoutMs}")
+    private long exportTimeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            // Called before the async processing starts, while the timeout can still be changed
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+                if (request instanceof AsyncWebRequest asyncRequest && servletRequest != null
+                        && UrlPathHelper.defaultInstance.getPathWithinApplication(servletRequest).startsWith(EXPORT_PATH)) {
+                    asyncRequest.setTimeout(exportTimeoutMs);
+                }
+            }
+        });
+    }
+}
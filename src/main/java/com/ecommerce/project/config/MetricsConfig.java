@@ -0,0 +1,46 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.security.jwt.JwtUtils;
+import com.ecommerce.project.security.services.UserDetailsCache;
+import com.ecommerce.project.service.ProductCatalogCache;
+import com.ecommerce.project.service.ProductImageCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Configuration
+public class MetricsConfig {
+
+    // The in-memory caches, under the meter names Micrometer uses for cache libraries.
+    // The size of the image cache is in bytes.
+    @Bean
+    public MeterBinder cacheMetrics(UserDetailsCache userDetailsCache, JwtUtils jwtUtils, ProductCatalogCache productCatalogCache,
+                                    ProductImageCache productImageCache) {
+        Map<String, Supplier<CacheStatsDTO>> caches = Map.of(
+                "principals", userDetailsCache::stats,
+                "verifiedTokens", jwtUtils::verifiedTokenStats,
+                "catalog", productCatalogCache::stats,
+                "images", productImageCache::stats
+        );
+        return registry -> caches.forEach((name, stats) -> {
+            FunctionCounter.builder("cache.gets", stats, cache -> cache.get().getHits())
+                    .tags("cache", name, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", stats, cache -> cache.get().getMisses())
+                    .tags("cache", name, "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("cache.evictions", stats, cache -> cache.get().getEvictions())
+                    .tag("cache", name)
+                    .register(registry);
+            Gauge.builder("cache.size", stats, cache -> cache.get().getSize())
+                    .tag("cache", name)
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.project.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Open-in-view as Spring Boot registers it, except for signin. There the entity manager would keep the connection that
+// loaded the user while the password is hashed, so a burst of signins drains the pool. Signin maps the user inside
+// its own transaction and needs no lazy loading afterwards.
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.open-in-view", havingValue = "true", matchIfMissing = true)
+public class OpenInViewConfig implements WebMvcConfigurer {
+    private static final String SIGNIN_PATH = "/api/auth/signin";
+
+    // Replaces the interceptor of Spring Boot, which is only registered when none is defined
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(SIGNIN_PATH);
+    }
+}
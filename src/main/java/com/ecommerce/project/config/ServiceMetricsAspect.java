@@ -0,0 +1,59 @@
+package com.ecommerce.project.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Times every public method of the instrumented services as "service.method", tagged with the service interface,
+// the method and the exception thrown ("none" on success). The timer count is the number of calls per outcome.
+// Timers are looked up once per method and outcome, not built and registered again on every call.
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.ecommerce.project.service.ProductService+.*(..))"
+            + " || execution(public * com.ecommerce.project.service.CartService+.*(..))"
+            + " || execution(public * com.ecommerce.project.service.OrderService+.*(..))"
+            + " || execution(public * com.ecommerce.project.service.CategoryService+.*(..))"
+            + " || execution(public * com.ecommerce.project.service.AddressService+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String exception = "none";
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable throwable) {
+            exception = throwable.getClass().getSimpleName();
+            throw throwable;
+        } finally {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            sample.stop(timers.computeIfAbsent(new TimerKey(method, exception), key -> Timer.builder("service.method")
+                    .tag("service", serviceName(joinPoint))
+                    .tag("method", method.getName())
+                    .tag("exception", key.exception())
+                    .register(meterRegistry)));
+        }
+    }
+
+    // The interface name, so that the tag does not change with the implementation class
+    private static String serviceName(ProceedingJoinPoint joinPoint) {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        return name.endsWith("Impl") ? name.substring(0, name.length() - "Impl".length()) : name;
+    }
+
+    private record TimerKey(Method method, String exception) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.project.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Streams the JFR events of virtual threads that blocked while pinned to their carrier thread
+// (inside a synchronized block or a native frame) and reports the first frame of our own code in each of them.
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.ecommerce.project.";
+
+    private final Map<String, LongAdder> pinnedFrames = new ConcurrentHashMap<>();
+    private final long thresholdMs;
+    private final MeterRegistry meterRegistry;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${spring.app.pinnedThreadThresholdMs}") long thresholdMs, MeterRegistry meterRegistry) {
+        this.thresholdMs = thresholdMs;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        recordingStream.close();
+    }
+
+    // Pinned events per frame, events without a frame of ours are counted under the top frame
+    public Map<String, Long> pinnedFrames() {
+        Map<String, Long> result = new TreeMap<>();
+        pinnedFrames.forEach((frame, count) -> result.put(frame, count.sum()));
+        return result;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String frame = applicationFrame(event);
+        pinnedFrames.computeIfAbsent(frame, key -> new LongAdder()).increment();
+        meterRegistry.counter("jvm.threads.virtual.pinned", "frame", frame).increment();
+        logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+    }
+
+    private static String applicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return format(frame);
+            }
+        }
+        return format(event.getStackTrace().getFrames().get(0));
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -36,8 +36,7 @@ public class AddressController {
 
     @GetMapping("user/addresses")
     public ResponseEntity<List<AddressDTO>> getUserAddresses() {
-        User user = authUtil.loggedInUser();
-        List<AddressDTO> addressDTOs = addressService.getUserAddresses(user);
+        List<AddressDTO> addressDTOs = addressService.getUserAddresses(authUtil.loggedInUserId());
         return new ResponseEntity<>(addressDTOs, HttpStatus.OK);
     }
 
@@ -0,0 +1,41 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.security.jwt.JwtUtils;
+import com.ecommerce.project.security.services.UserDetailsCache;
+import com.ecommerce.project.service.ProductCatalogCache;
+import com.ecommerce.project.service.ProductImageCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("api/admin/caches")
+public class CacheController {
+
+    private final UserDetailsCache userDetailsCache;
+    private final JwtUtils jwtUtils;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductImageCache productImageCache;
+
+    public CacheController(UserDetailsCache userDetailsCache, JwtUtils jwtUtils, ProductCatalogCache productCatalogCache,
+                           ProductImageCache productImageCache) {
+        this.userDetailsCache = userDetailsCache;
+        this.jwtUtils = jwtUtils;
+        this.productCatalogCache = productCatalogCache;
+        this.productImageCache = productImageCache;
+    }
+
+    @GetMapping("")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(List.of(
+                userDetailsCache.stats(),
+                jwtUtils.verifiedTokenStats(),
+                productCatalogCache.stats(),
+                productImageCache.stats()
+        ));
+    }
+}
@@ -1,6 +1,5 @@
 package com.ecommerce.project.controller;
 
-import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.payload.CartDTO;
 import com.ecommerce.project.service.CartService;
 import com.ecommerce.project.util.AuthUtil;
@@ -29,8 +28,7 @@ public class CartController {
     @GetMapping("carts/users/cart")
     public ResponseEntity<CartDTO> getCartById() {
         String email = authUtil.loggedInEmail();
-        Cart userCart = cartService.getCartFromEmail(email);
-        CartDTO cartDTO = cartService.getCart(email, userCart.getCartId());
+        CartDTO cartDTO = cartService.getUserCart(email);
         return ResponseEntity.ok(cartDTO);
     }
 
@@ -2,6 +2,7 @@ package com.ecommerce.project.controller;
 
 import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
 import com.ecommerce.project.service.CategoryService;
 import jakarta.validation.Valid;
@@ -28,6 +29,17 @@ public class CategoryController {
         return ResponseEntity.ok(categoryService.getAllCategories(pageNumber, pageSize, sortBy, sortOrder));
     }
 
+    // Keyset mode: selected whenever "after" is present (send it empty for the first page)
+    @GetMapping(value = "", params = "after")
+    public ResponseEntity<CursorPaginationResponse<CategoryDTO>> getAllCategoriesAfter(
+            @RequestParam(name = "after") String after,
+            @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_CATEGORIES_BY, required = false) String sortBy,
+            @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_DIRECTION, required = false) String sortOrder
+    ) {
+        return ResponseEntity.ok(categoryService.getAllCategories(after, pageSize, sortBy, sortOrder));
+    }
+
     @PostMapping("")
     public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody CategoryDTO categoryDTO) {
         CategoryDTO savedCategoryDTO = categoryService.createCategory(categoryDTO);
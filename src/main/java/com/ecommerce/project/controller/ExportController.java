@@ -0,0 +1,52 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.service.ExportService;
+import com.ecommerce.project.util.DataFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// The body is written by the async request executor while the rows are read, nothing is buffered in between
+@RestController
+@RequestMapping("api/admin/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(name = "format", defaultValue = AppConstants.EXPORT_FORMAT) String format
+    ) {
+        DataFormat exportFormat = DataFormat.of(format);
+        return attachment("products", exportFormat, outputStream -> exportService.exportProducts(exportFormat, outputStream));
+    }
+
+    @GetMapping("orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(name = "format", defaultValue = AppConstants.EXPORT_FORMAT) String format
+    ) {
+        DataFormat exportFormat = DataFormat.of(format);
+        return attachment("orders", exportFormat, outputStream -> exportService.exportOrders(exportFormat, outputStream));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(String name, DataFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.service.ImageVariants;
+import com.ecommerce.project.service.ProductImageCache;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Image files never change under their name, so browsers and proxies may keep them for a year.
+// Spring answers If-None-Match with 304 from the ETag, and Range requests with 206 from the resource.
+// Downscaled variants of an image are under /images/{thumbnail|listing|detail}/{fileName}.
+@RestController
+@RequestMapping("images")
+public class ImageController {
+
+    private static final String CONTENT_SECURITY_POLICY = "Content-Security-Policy";
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ProductImageCache productImageCache;
+    private final ImageVariants imageVariants;
+
+    public ImageController(ProductImageCache productImageCache, ImageVariants imageVariants) {
+        this.productImageCache = productImageCache;
+        this.imageVariants = imageVariants;
+    }
+
+    @GetMapping("{fileName}")
+    public ResponseEntity<Resource> getImage(@PathVariable String fileName) throws IOException {
+        return image(productImageCache.get(fileName), IMMUTABLE);
+    }
+
+    @GetMapping("{variant}/{fileName}")
+    public ResponseEntity<Resource> getImageVariant(@PathVariable String variant, @PathVariable String fileName) throws IOException {
+        ImageVariants.Variant imageVariant = ImageVariants.Variant.of(variant);
+        if (imageVariant == null)
+            throw new ResourceNotFoundException("Image variant", "name", variant);
+
+        ProductImageCache.Image image = productImageCache.getVariant(imageVariant, fileName);
+        if (image != null) {
+            return image(image, IMMUTABLE);
+        }
+        // Not made yet, or gone missing: have it made and send the original meanwhile, to be asked for again
+        ProductImageCache.Image original = productImageCache.get(fileName);
+        imageVariants.generate(fileName);
+        return image(original, CacheControl.noCache());
+    }
+
+    private static ResponseEntity<Resource> image(ProductImageCache.Image image, CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .eTag(image.eTag())
+                .cacheControl(cacheControl)
+                .contentType(image.contentType())
+                // Shown as an image only, never as a document that could run scripts
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().build().toString())
+                .header(CONTENT_SECURITY_POLICY, "default-src 'none'")
+                .body(image.resource());
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.payload.ImportResponse;
+import com.ecommerce.project.service.ProductImportService;
+import com.ecommerce.project.util.DataFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// The body is read as a stream while the rows are imported, it is never held in memory as a whole
+@RestController
+@RequestMapping("api/admin/import")
+public class ImportController {
+
+    private final ProductImportService productImportService;
+
+    public ImportController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    @PostMapping("products")
+    public ResponseEntity<ImportResponse> importProducts(
+            @RequestParam(name = "format", defaultValue = AppConstants.IMPORT_FORMAT) String format,
+            InputStream body
+    ) throws IOException {
+        ImportResponse response = productImportService.importProducts(DataFormat.of(format), body);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -1,15 +1,19 @@
 package com.ecommerce.project.controller;
 
 import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.service.ProductService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("api")
@@ -32,6 +36,18 @@ public class ProductController {
         return ResponseEntity.ok(productResponse);
     }
 
+    // Keyset mode: selected whenever "after" is present (send it empty for the first page)
+    @GetMapping(value = "products", params = "after")
+    public ResponseEntity<CursorPaginationResponse<ProductDTO>> getAllProductsAfter(
+            @RequestParam(value = "after") String after,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+            @RequestParam(value = "sortBy", defaultValue = AppConstants.SORT_PRODUCTS_BY, required = false) String sortBy,
+            @RequestParam(value = "sortOrder", defaultValue = AppConstants.SORT_DIRECTION, required = false) String sortOrder
+    ) {
+        CursorPaginationResponse<ProductDTO> productResponse = productService.getAllProducts(after, pageSize, sortBy, sortOrder);
+        return ResponseEntity.ok(productResponse);
+    }
+
     @GetMapping("categories/{categoryId}/products")
     public ResponseEntity<PaginationResponse<ProductDTO>> getProductsByCategory(
             @PathVariable Long categoryId,
@@ -68,6 +84,19 @@ public class ProductController {
         return ResponseEntity.ok(updatedProductDTO);
     }
 
+    // The image as the raw request body, written to disk while it is received instead of buffered as a multipart part
+    @PutMapping(value = "products/{productId}/image", consumes = {
+            MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"
+    })
+    public ResponseEntity<ProductDTO> uploadProductImage(
+            @PathVariable Long productId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream image
+    ) throws IOException {
+        ProductDTO updatedProductDTO = productService.updateProductImage(productId, image, contentType);
+        return ResponseEntity.ok(updatedProductDTO);
+    }
+
     @PutMapping("products/{productId}")
     public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long productId, @Valid @RequestBody ProductDTO productDTO) {
         ProductDTO updatedProductDTO = productService.updateProduct(productId, productDTO);
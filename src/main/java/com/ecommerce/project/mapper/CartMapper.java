@@ -0,0 +1,22 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.util.Money;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+
+// Amounts in minor units are converted to the major units of the API by Money.toDouble
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, uses = Money.class)
+public interface CartMapper {
+    @Mapping(target = "products", source = "cartItems")
+    CartDTO toCartDTO(Cart cart);
+
+    // A cart line is rendered as its product, with the quantity in the cart instead of the stock quantity
+    @Mapping(target = ".", source = "product")
+    @Mapping(target = "quantity", source = "quantity")
+    ProductDTO toProductDTO(CartItem cartItem);
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.payload.CategoryDTO;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface CategoryMapper {
+    CategoryDTO toCategoryDTO(Category category);
+
+    Category toCategory(CategoryDTO categoryDTO);
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Payment;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderItemDTO;
+import com.ecommerce.project.payload.PaymentDTO;
+import com.ecommerce.project.util.Money;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+
+// Amounts in minor units are converted to the major units of the API by Money.toDouble
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, uses = {ProductMapper.class, Money.class})
+public interface OrderMapper {
+    @Mapping(target = "addressId", source = "address.addressId")
+    OrderDTO toOrderDTO(Order order);
+
+    @Mapping(target = "orderProductPrice", source = "orderedProductPrice")
+    OrderItemDTO toOrderItemDTO(OrderItem orderItem);
+
+    PaymentDTO toPaymentDTO(Payment payment);
+}
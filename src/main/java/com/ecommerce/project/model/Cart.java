@@ -1,9 +1,12 @@
 package com.ecommerce.project.model;
 
+import com.ecommerce.project.util.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -18,10 +21,14 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long cartId;
 
-    @OneToOne
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(
             mappedBy = "cart", // This name must match with property name on the other model (CartItem)
             cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE},
@@ -29,5 +36,16 @@ public class Cart {
     )
     private List<CartItem> cartItems = new ArrayList<>();
 
-    private Double totalPrice = 0.0;
+    @Convert(converter = MinorUnitsConverter.class)
+    private long totalPrice;
+
+    // Exact total of the cart lines in minor units, indexed so that no iterator is allocated
+    public long computeTotalPrice() {
+        long total = 0;
+        for (int i = 0; i < cartItems.size(); i++) {
+            CartItem cartItem = cartItems.get(i);
+            total += Money.times(cartItem.getProductPrice(), cartItem.getQuantity());
+        }
+        return total;
+    }
 }
@@ -0,0 +1,20 @@
+package com.ecommerce.project.model;
+
+import com.ecommerce.project.util.Money;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Amounts are held in minor units in memory while their columns keep major units,
+// so existing rows and the totals recomputed by the database stay valid
+@Converter
+public class MinorUnitsConverter implements AttributeConverter<Long, Double> {
+    @Override
+    public Double convertToDatabaseColumn(Long amount) {
+        return amount != null ? Money.toDouble(amount) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(Double amount) {
+        return amount != null ? Money.of(amount) : 0L;
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Keyset variant of PaginationResponse: no total count, pass nextCursor as "after" to get the next page
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPaginationResponse<T> {
+    private List<T> content;
+    private Integer pageSize;
+    private String nextCursor;
+    private boolean lastPage;
+}
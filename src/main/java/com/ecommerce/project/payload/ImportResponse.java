@@ -0,0 +1,18 @@
+package com.ecommerce.project.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResponse {
+    private Integer imported = 0;
+    private Integer failed = 0;
+    // The first errors only, failed counts them all
+    private List<ImportErrorDTO> errors = new ArrayList<>();
+}
@@ -4,5 +4,8 @@ import com.ecommerce.project.model.Address;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
+
 public interface AddressRepository extends JpaRepository<Address, Long> {
+    List<Address> findByUserUserId(Long userId);
 }
@@ -12,4 +12,12 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Modifying // Tell JPA to not threat this query as a SELECT query
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = ?2")
     void deleteCartItemByProductIdAndCartId(Long cartId, Long productId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = ?1")
+    int deleteAllByCartId(Long cartId);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.productPrice = ?2 WHERE ci.product.id = ?1 AND ci.productPrice <> ?2")
+    int updateProductPrice(Long productId, long productPrice);
 }
@@ -1,18 +1,42 @@
 package com.ecommerce.project.repositories;
 
 import com.ecommerce.project.model.Cart;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
+    // Carts are loaded with their items and products, which are needed to render the cart and to check out
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
     @Query("SELECT c FROM Cart c WHERE c.user.email = ?1")
     Cart findCartByEmail(String email);
 
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
     @Query("SELECT c FROM Cart c WHERE c.user.email = ?1 AND c.id = ?2") // NOTE: Use "id" as column name
     Cart findCartByEmailAndCartId(String email, Long cartId);
 
+    @Override
+    @EntityGraph(attributePaths = {"cartItems", "cartItems.product"})
+    List<Cart> findAll();
+
     @Query("SELECT c FROM Cart c JOIN FETCH c.cartItems ci JOIN FETCH ci.product p WHERE p.id = ?1")
     List<Cart> findCartsByProductId(Long productId);
+
+    // Recompute the total of every cart containing the product from its cart items
+    @Modifying
+    @Query("UPDATE Cart c SET c.totalPrice = " +
+            "(SELECT COALESCE(SUM(ci.productPrice * ci.quantity), 0) FROM CartItem ci WHERE ci.cart.id = c.id) " +
+            "WHERE c.id IN (SELECT ci.cart.id FROM CartItem ci WHERE ci.product.id = ?1)")
+    int recalculateTotalPriceForProduct(Long productId);
+
+    // Recompute the total of the given carts from their cart items, after writing the pending cart item updates
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalPrice = " +
+            "(SELECT COALESCE(SUM(ci.productPrice * ci.quantity), 0) FROM CartItem ci WHERE ci.cart.id = c.id) " +
+            "WHERE c.id IN ?1")
+    int recalculateTotalPrice(Collection<Long> cartIds);
 }
@@ -4,6 +4,4 @@ import com.ecommerce.project.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-    boolean existsByCategoryName(String categoryName);
-    boolean existsByCategoryIdNotAndCategoryName(Long categoryId, String categoryName);
 }
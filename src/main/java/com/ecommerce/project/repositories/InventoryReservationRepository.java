@@ -0,0 +1,59 @@
+package com.ecommerce.project.repositories;
+
+import com.ecommerce.project.model.InventoryReservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+    @Query("SELECT r FROM InventoryReservation r WHERE r.cart.id = ?1 AND r.product.id = ?2")
+    InventoryReservation findByCartIdAndProductId(Long cartId, Long productId);
+
+    @Query("SELECT r FROM InventoryReservation r WHERE r.cart.id IN ?1")
+    List<InventoryReservation> findByCartIds(Collection<Long> cartIds);
+
+    @Query("SELECT r.product.id AS productId, r.quantity AS quantity FROM InventoryReservation r WHERE r.cart.id = ?1")
+    List<HeldQuantity> findHeldQuantitiesByCartId(Long cartId);
+
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM InventoryReservation r WHERE r.product.id = ?1")
+    long sumQuantityByProductId(Long productId);
+
+    @Query("SELECT r.product.id AS productId, SUM(r.quantity) AS quantity FROM InventoryReservation r " +
+            "WHERE r.product.id IN ?1 GROUP BY r.product.id")
+    List<HeldQuantity> sumQuantityByProductIds(Collection<Long> productIds);
+
+    @Query("SELECT r.reservationId AS reservationId, r.product.id AS productId, r.quantity AS quantity " +
+            "FROM InventoryReservation r WHERE r.expiresAt <= ?1 ORDER BY r.expiresAt")
+    List<ExpiredReservation> findExpired(Instant now, Limit limit);
+
+    // Only deletes the hold if it is still expired, so a hold refreshed in the meantime is kept
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.reservationId = ?1 AND r.expiresAt <= ?2")
+    int deleteExpired(Long reservationId, Instant now);
+
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.cart.id = ?1 AND r.product.id = ?2")
+    int deleteByCartIdAndProductId(Long cartId, Long productId);
+
+    @Modifying
+    @Query("DELETE FROM InventoryReservation r WHERE r.cart.id = ?1")
+    int deleteAllByCartId(Long cartId);
+
+    interface HeldQuantity {
+        Long getProductId();
+        Integer getQuantity();
+    }
+
+    interface ExpiredReservation {
+        Long getReservationId();
+        Long getProductId();
+        Integer getQuantity();
+    }
+}
@@ -1,9 +1,24 @@
 package com.ecommerce.project.repositories;
 
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.model.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // Read-only stream for the export, every order with its lines, orders without lines included.
+    // Ordered by order so that Hibernate can put the joined rows of one order back together as they stream by.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems oi ORDER BY o.orderId, oi.orderItemId")
+    Stream<Order> streamAllWithItems();
 }
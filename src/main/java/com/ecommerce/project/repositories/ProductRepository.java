@@ -1,16 +1,45 @@
 package com.ecommerce.project.repositories;
 
+import com.ecommerce.project.config.AppConstants;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    // Keyset (seek) query: no COUNT and no OFFSET, the product id is appended to the sort as tie-breaker
+    Window<Product> findBy(ScrollPosition position, Sort sort, Limit limit);
     Page<Product> findByCategoryOrderByPriceAsc(Category category, Pageable pageable);
     Page<Product> findByProductNameLikeIgnoreCase(String keyword, Pageable pageable);
     boolean existsByProductName(String productName);
     boolean existsByProductIdNotAndProductName(Long productId, String productName);
+
+    @Query("SELECT p.productName FROM Product p")
+    List<String> findAllProductNames();
+
+    // Read-only stream for the export, fetched in batches instead of loaded at once (needs an open transaction)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.productId")
+    Stream<Product> streamAll();
+
+    // Take every line of the cart out of stock in one statement.
+    // Lines without enough stock are skipped, so a result lower than the number of lines means the checkout must fail.
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - " +
+            "(SELECT ci.quantity FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.product.id = p.id) " +
+            "WHERE p.id IN (SELECT ci.product.id FROM CartItem ci WHERE ci.cart.id = ?1 AND ci.quantity <= p.quantity)")
+    int decrementStockForCart(Long cartId);
 }
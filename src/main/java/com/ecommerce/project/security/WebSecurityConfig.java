@@ -7,7 +7,9 @@ import com.ecommerce.project.repositories.RoleRepository;
 import com.ecommerce.project.repositories.UserRepository;
 import com.ecommerce.project.security.jwt.AuthEntryPointJwt;
 import com.ecommerce.project.security.jwt.AuthTokenFilter;
+import com.ecommerce.project.security.services.UserDetailsCache;
 import com.ecommerce.project.security.services.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -70,11 +72,18 @@ public class WebSecurityConfig {
         );
         http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
         http.authorizeHttpRequests((requests) ->
-                requests.requestMatchers("/api/auth/**").permitAll()
+                // An async dispatch resumes a request that was already authorized (e.g. a streamed export),
+                // the stateless JWT context is not restored for it
+                requests.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
-                        .requestMatchers("/images").permitAll()
+                        .requestMatchers("/images/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Metrics name services, queries and pool sizes, scrapers sign in as an admin
+                        .requestMatchers("/actuator/prometheus").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         //.requestMatchers("/api/**").permitAll() // TODO: Remove after testing
                         .anyRequest().authenticated()
         );
@@ -103,7 +112,7 @@ public class WebSecurityConfig {
     }
 
     @Bean
-    public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public CommandLineRunner initData(RoleRepository roleRepository, UserRepository userRepository, PasswordEncoder passwordEncoder, UserDetailsCache userDetailsCache) {
         return args -> {
             // Retrieve or create roles
             Role userRole = roleRepository.findByRoleName(AppRole.ROLE_USER)
@@ -149,16 +158,19 @@ public class WebSecurityConfig {
             userRepository.findByUsername("user1").ifPresent(user -> {
                 user.setRoles(userRoles);
                 userRepository.save(user);
+                userDetailsCache.evict(user.getUsername());
             });
 
             userRepository.findByUsername("seller1").ifPresent(seller -> {
                 seller.setRoles(sellerRoles);
                 userRepository.save(seller);
+                userDetailsCache.evict(seller.getUsername());
             });
 
             userRepository.findByUsername("admin").ifPresent(admin -> {
                 admin.setRoles(adminRoles);
                 userRepository.save(admin);
+                userDetailsCache.evict(admin.getUsername());
             });
         };
     }
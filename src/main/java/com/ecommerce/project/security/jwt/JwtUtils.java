@@ -1,12 +1,12 @@
 package com.ecommerce.project.security.jwt;
 
+import com.ecommerce.project.payload.CacheStatsDTO;
 import com.ecommerce.project.security.services.UserDetailsImpl;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.UnsupportedJwtException;
+import com.ecommerce.project.util.BoundedTtlCache;
+import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
@@ -17,7 +17,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.util.WebUtils;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
@@ -33,6 +37,28 @@ public class JwtUtils {
     @Value("${spring.app.jwtCookieName}")
     private String jwtCookie;
 
+    @Value("${spring.app.jwtCacheMaxSize}")
+    private int jwtCacheMaxSize;
+
+    @Value("${spring.app.jwtCacheTtlMs}")
+    private long jwtCacheTtlMs;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // SHA-256 digest of recently verified tokens -> their claims, so a repeated cookie skips signature verification
+    private BoundedTtlCache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        // Key and parser are immutable and thread-safe, build them once instead of on every request
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifiedTokens = new BoundedTtlCache<>("verifiedTokens", jwtCacheMaxSize, jwtCacheTtlMs);
+    }
+
     public String getJwtFromCookies(HttpServletRequest request) {
         Cookie cookie = WebUtils.getCookie(request, jwtCookie);
         if (cookie != null) {
@@ -43,7 +69,7 @@ public class JwtUtils {
     }
 
     public ResponseCookie generateJwtCookie(UserDetailsImpl userDetails) {
-        String jwt = generateTokenFromUsername(userDetails.getUsername());
+        String jwt = generateTokenFromUsername(userDetails);
         return ResponseCookie.from(jwtCookie, jwt)
                 .path("/api") // Limit cookie to use with routes that starts with "api" prefix only
                 .maxAge(24 * 60 * 60) // Expire in 1 day
@@ -58,46 +84,80 @@ public class JwtUtils {
                 .build();
     }
 
-    public String generateTokenFromUsername(String username) {
+    // Only the username goes in the token, AuthTokenFilter resolves the current roles through UserDetailsCache
+    public String generateTokenFromUsername(UserDetailsImpl userDetails) {
         Date currentDatetime = new Date();
         return Jwts.builder()
-                .subject(username)
+                .subject(userDetails.getUsername())
                 .issuedAt(currentDatetime)
                 .expiration(new Date(currentDatetime.getTime() + jwtExpirationMs))
-                .signWith(key())
+                .signWith(signingKey)
                 .compact();
     }
 
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build().parseSignedClaims(token)
-                .getPayload().getSubject();
+        Claims claims = verifyJwtToken(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
-    // Generate signing key
+    // Signing key, built once in init()
     public Key key() {
-        return Keys.hmacShaKeyFor(
-                Decoders.BASE64.decode(jwtSecret)
-        );
+        return signingKey;
     }
 
     public boolean validateJwtToken(String authToken) {
+        return verifyJwtToken(authToken) != null;
+    }
+
+    // Verify the signature once and return the claims, or null if the token is not valid
+    public Claims verifyJwtToken(String authToken) {
+        if (authToken == null || authToken.isBlank()) {
+            logger.error("JWT claims string is empty");
+            return null;
+        }
+
+        String digest = digest(authToken);
+        Claims claims = verifiedTokens.get(digest);
+        if (claims != null) {
+            return claims;
+        }
+
         try {
-            System.out.println("Validate");
-            Jwts.parser()
-                    .verifyWith((SecretKey) key())
-                    .build().parseSignedClaims(authToken);
-            return true;
+            claims = jwtParser.parseSignedClaims(authToken).getPayload();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
+            return null;
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
+            return null;
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+            return null;
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+            return null;
+        } catch (JwtException e) {
+            logger.error("JWT token is not valid: {}", e.getMessage());
+            return null;
+        }
+
+        // Never keep a token in the cache past its own expiration
+        Date expiration = claims.getExpiration();
+        verifiedTokens.put(digest, claims, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        return claims;
+    }
+
+    public CacheStatsDTO verifiedTokenStats() {
+        return verifiedTokens.stats();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
-        return false;
     }
 }
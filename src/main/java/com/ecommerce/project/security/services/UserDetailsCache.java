@@ -0,0 +1,35 @@
+package com.ecommerce.project.security.services;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Keeps the principals resolved by AuthTokenFilter so that authenticated requests do not hit the users table.
+// Entries must be evicted whenever a user or its roles change.
+@Component
+public class UserDetailsCache {
+    private final UserDetailsServiceImpl userDetailsService;
+    private final BoundedTtlCache<String, UserDetailsImpl> cache;
+
+    public UserDetailsCache(
+            UserDetailsServiceImpl userDetailsService,
+            @Value("${spring.app.principalCacheMaxSize}") int maxSize,
+            @Value("${spring.app.principalCacheTtlMs}") long ttlMs
+    ) {
+        this.userDetailsService = userDetailsService;
+        this.cache = new BoundedTtlCache<>("principals", maxSize, ttlMs);
+    }
+
+    public UserDetailsImpl loadUserByUsername(String username) {
+        return cache.get(username, key -> (UserDetailsImpl) userDetailsService.loadUserByUsername(key));
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    public CacheStatsDTO stats() {
+        return cache.stats();
+    }
+}
@@ -8,7 +8,7 @@ import java.util.List;
 public interface AddressService {
     List<AddressDTO> getAddresses();
     AddressDTO getAddressById(Long addressId);
-    List<AddressDTO> getUserAddresses(User user);
+    List<AddressDTO> getUserAddresses(Long userId);
     AddressDTO createAddress(AddressDTO addressDTO, User user);
     AddressDTO updateAddress(Long addressId, AddressDTO addressDTO);
     AddressDTO deleteAddress(Long addressId);
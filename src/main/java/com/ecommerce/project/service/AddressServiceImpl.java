@@ -1,12 +1,12 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.AddressMapper;
 import com.ecommerce.project.model.Address;
 import com.ecommerce.project.model.User;
 import com.ecommerce.project.payload.AddressDTO;
 import com.ecommerce.project.repositories.AddressRepository;
-import com.ecommerce.project.repositories.UserRepository;
-import org.modelmapper.ModelMapper;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,19 +16,16 @@ import java.util.List;
 public class AddressServiceImpl implements AddressService {
 
     @Autowired
-    ModelMapper modelMapper;
+    AddressMapper addressMapper;
 
     @Autowired
     AddressRepository addressRepository;
 
-    @Autowired
-    UserRepository userRepository;
-
     @Override
     public List<AddressDTO> getAddresses() {
         List<Address> addresses = addressRepository.findAll();
         return addresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(addressMapper::toAddressDTO)
                 .toList();
     }
 
@@ -37,20 +34,21 @@ public class AddressServiceImpl implements AddressService {
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
 
-        return modelMapper.map(address, AddressDTO.class);
+        return addressMapper.toAddressDTO(address);
     }
 
     @Override
-    public List<AddressDTO> getUserAddresses(User user) {
-        List<Address> userAddresses = user.getAddresses();
+    public List<AddressDTO> getUserAddresses(Long userId) {
+        // Query by the user id from the principal, the user entity itself is not needed
+        List<Address> userAddresses = addressRepository.findByUserUserId(userId);
         return userAddresses.stream()
-                .map(address -> modelMapper.map(address, AddressDTO.class))
+                .map(addressMapper::toAddressDTO)
                 .toList();
     }
 
     @Override
     public AddressDTO createAddress(AddressDTO addressDTO, User user) {
-        Address address = modelMapper.map(addressDTO, Address.class);
+        Address address = addressMapper.toAddress(addressDTO);
 
         List<Address> addressList = user.getAddresses();
         addressList.add(address);
@@ -59,10 +57,11 @@ public class AddressServiceImpl implements AddressService {
         address.setUser(user); // Update user list of address (need to update both side of relation)
         Address savedAddress = addressRepository.save(address);
 
-        return modelMapper.map(savedAddress, AddressDTO.class);
+        return addressMapper.toAddressDTO(savedAddress);
     }
 
     @Override
+    @Transactional
     public AddressDTO updateAddress(Long addressId, AddressDTO addressDTO) {
         Address addressFromDb = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
@@ -75,27 +74,20 @@ public class AddressServiceImpl implements AddressService {
         addressFromDb.setStreet(addressDTO.getStreet());
         addressFromDb.setBuildingName(addressDTO.getBuildingName());
 
+        // Address owns the relation, the user's address list does not need to be loaded and rewritten
         Address updatedAddress = addressRepository.save(addressFromDb);
 
-        User user = addressFromDb.getUser();
-        user.getAddresses().removeIf(address -> address.getAddressId().equals(addressId));
-        user.getAddresses().add(updatedAddress);
-        userRepository.save(user);
-
-        return modelMapper.map(updatedAddress, AddressDTO.class);
+        return addressMapper.toAddressDTO(updatedAddress);
     }
 
     @Override
+    @Transactional
     public AddressDTO deleteAddress(Long addressId) {
         Address addressFromDb = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address", "addressId", addressId));
 
-        User user = addressFromDb.getUser();
-        user.getAddresses().removeIf(address -> address.getAddressId().equals(addressId));
-        userRepository.save(user);
-
         addressRepository.delete(addressFromDb);
 
-        return modelMapper.map(addressFromDb, AddressDTO.class);
+        return addressMapper.toAddressDTO(addressFromDb);
     }
 }
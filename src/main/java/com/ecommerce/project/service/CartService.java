@@ -2,7 +2,6 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.payload.CartDTO;
-import jakarta.transaction.Transactional;
 
 import java.util.List;
 
@@ -12,12 +11,12 @@ public interface CartService {
     Cart getCartFromEmail(String email);
 
     CartDTO getCart(String email, Long cartId);
+    CartDTO getUserCart(String email);
 
     CartDTO addProductToCart(Long productId, Integer quantity);
-    @Transactional
     CartDTO updateProductQuantityInCart(Long productId, Integer quantity);
 
     String deleteProductFromCart(Long cartId, Long productId);
 
-    void updateProductInCart(Long cartId, Long productId);
+    int repriceProduct(Long productId, long productPrice);
 }
@@ -2,19 +2,20 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CartMapper;
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.CartItem;
 import com.ecommerce.project.model.Product;
 import com.ecommerce.project.payload.CartDTO;
-import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.repositories.CartItemRepository;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.ProductRepository;
 import com.ecommerce.project.util.AuthUtil;
-import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 
@@ -30,7 +31,16 @@ public class CartServiceImpl implements CartService {
     ProductRepository productRepository;
 
     @Autowired
-    ModelMapper modelMapper;
+    CartMapper cartMapper;
+
+    @Autowired
+    InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    CartStore cartStore;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
 
     @Autowired
     AuthUtil authUtil;
@@ -47,45 +57,51 @@ public class CartServiceImpl implements CartService {
 
     @Override
     public CartDTO getCart(String email, Long cartId) {
+        CartDTO storedCart = cartStore.find(email);
+        if (storedCart != null && storedCart.getCartId().equals(cartId)) {
+            return storedCart;
+        }
+
         Cart userCart = cartRepository.findCartByEmailAndCartId(email, cartId);
         if (userCart == null) {
             throw new ResourceNotFoundException("Cart", "cartId", cartId);
         }
 
-        CartDTO cartDTO = modelMapper.map(userCart, CartDTO.class);
-        List<CartItem> cartItems = userCart.getCartItems();
-        List<ProductDTO> productDTOs = cartItems.stream().map(ci -> {
-            ProductDTO map = modelMapper.map(ci.getProduct(), ProductDTO.class);
-            map.setQuantity(ci.getQuantity());
-            return map;
-        }).toList();
-        cartDTO.setProducts(productDTOs);
+        return cartMapper.toCartDTO(userCart);
+    }
+
+    // One lookup by email, the cart id is not needed to find the cart of the logged-in user
+    @Override
+    public CartDTO getUserCart(String email) {
+        CartDTO storedCart = cartStore.find(email);
+        if (storedCart != null) {
+            return storedCart;
+        }
 
-        return cartDTO;
+        return cartMapper.toCartDTO(getCartFromEmail(email));
     }
 
     @Override
     public List<CartDTO> getAllCarts() {
+        cartStore.flush();
         List<Cart> carts = cartRepository.findAll();
         if (carts.isEmpty()) {
             throw new APIException("No cart exists");
         }
 
-        return carts.stream().map(cart -> {
-           CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-           List<ProductDTO> productDTOs = cart.getCartItems().stream().map(cartItem -> {
-               ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
-               productDTO.setQuantity(cartItem.getQuantity());
-               return productDTO;
-           }).toList();
-           cartDTO.setProducts(productDTOs);
-
-           return cartDTO;
-        }).toList();
+        return carts.stream()
+                .map(cartMapper::toCartDTO)
+                .toList();
     }
 
+    // Changes that go through the database run in a transaction of their own, opened once the cart is frozen
     @Override
     public CartDTO addProductToCart(Long productId, Integer quantity) {
+        return cartStore.withCartFrozen(authUtil.loggedInEmail(), () -> new TransactionTemplate(transactionManager)
+                .execute(status -> addProductToCartInDatabase(productId, quantity)));
+    }
+
+    private CartDTO addProductToCartInDatabase(Long productId, Integer quantity) {
         Cart cart = getOrCreateCart();
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
@@ -98,11 +114,8 @@ public class CartServiceImpl implements CartService {
         if (product.getQuantity() == 0) {
             throw new APIException(product.getProductName() + " is not available");
         }
-        if (product.getQuantity() < quantity) {
-            throw new APIException(
-                    "Please make an order of the " + product.getProductName() +
-                    " less than or equal to the quantity: " + product.getQuantity());
-        }
+        // Hold the stock for this cart (fails when the stock not held by other carts is insufficient)
+        inventoryReservationService.reserve(cart, product, quantity);
 
         // Cart new cart item
         CartItem newCartItem = new CartItem();
@@ -110,36 +123,40 @@ public class CartServiceImpl implements CartService {
         newCartItem.setCart(cart);
         newCartItem.setQuantity(quantity);
         newCartItem.setDiscount(product.getDiscount());
-        newCartItem.setProductPrice(product.getSpecialPrice());
+        newCartItem.setProductPrice(Money.of(product.getSpecialPrice()));
         cartItemRepository.save(newCartItem);
 
         // Update related model
         product.setQuantity(product.getQuantity());
-        cart.setTotalPrice(cart.getTotalPrice() + (product.getSpecialPrice() * quantity));
+        cart.setTotalPrice(cart.getTotalPrice() + Money.times(newCartItem.getProductPrice(), quantity));
         cartRepository.save(cart);
 
         // Format output
-        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
         List<CartItem> cartItems = cart.getCartItems();
         // Prevent empty cart when the cart entity is newly created
         // (there will be error where cart items will be empty when the cart item has been added to the cart for the first time)
         if (cartItems.isEmpty()) {
             cartItems.add(newCartItem);
         }
-        List<ProductDTO> productDTOs = cartItems.stream().map(ci -> {
-           ProductDTO map = modelMapper.map(ci.getProduct(), ProductDTO.class);
-           map.setQuantity(ci.getQuantity());
-           return map;
-        }).toList();
-        cartDTO.setProducts(productDTOs);
-
-        return cartDTO;
+
+        return cartMapper.toCartDTO(cart);
     }
 
+    // +/- clicks are applied to the cart store and written behind, without a transaction.
+    // Lines that are not in memory or drop to zero go through the database.
     @Override
-    @Transactional
     public CartDTO updateProductQuantityInCart(Long productId, Integer quantity) {
         String email = authUtil.loggedInEmail();
+        CartDTO storedCart = cartStore.updateQuantity(email, productId, quantity);
+        if (storedCart != null) {
+            return storedCart;
+        }
+
+        return cartStore.withCartFrozen(email, () -> new TransactionTemplate(transactionManager)
+                .execute(status -> updateProductQuantityInDatabase(email, productId, quantity)));
+    }
+
+    private CartDTO updateProductQuantityInDatabase(String email, Long productId, Integer quantity) {
         Cart cart = cartRepository.findCartByEmail(email);
         Long cartId = cart.getCartId();
 
@@ -149,9 +166,6 @@ public class CartServiceImpl implements CartService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-        if (product.getQuantity() == 0) {
-            throw new APIException(product.getProductName() + " is not available");
-        }
 
         CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
         if (cartItem == null) {
@@ -162,38 +176,31 @@ public class CartServiceImpl implements CartService {
         if (newQuantity < 0) {
             throw new APIException("Quantity cannot be negative");
         }
-        if (product.getQuantity() < newQuantity) {
-            throw new APIException(
-                    "Please make an order of the " + product.getProductName() +
-                            " less than or equal to the quantity: " + newQuantity);
-        }
 
         if (newQuantity <= 0) {
-            deleteProductFromCart(cartId, productId);
+            deleteProductFromCartInDatabase(cartId, productId);
         } else {
-            cartItem.setProductPrice(product.getSpecialPrice());
+            inventoryReservationService.reserve(userCart, product, newQuantity);
+            cartItem.setProductPrice(Money.of(product.getSpecialPrice()));
             cartItem.setQuantity(newQuantity);
             cartItem.setDiscount(product.getDiscount());
-            cart.setTotalPrice(cart.getTotalPrice() + (cartItem.getProductPrice() * quantity));
+            // The loaded cart holds the same cart item instance, recompute its total from the lines
+            cart.setTotalPrice(cart.computeTotalPrice());
             cartRepository.save(cart);
         }
 
         cartItemRepository.save(cartItem);
-        CartDTO cartDTO = modelMapper.map(userCart, CartDTO.class);
-        List<CartItem> cartItems = userCart.getCartItems();
-        List<ProductDTO> productDTOs = cartItems.stream().map(ci -> {
-            ProductDTO map = modelMapper.map(ci.getProduct(), ProductDTO.class);
-            map.setQuantity(ci.getQuantity());
-            return map;
-        }).toList();
-        cartDTO.setProducts(productDTOs);
-
-        return cartDTO;
+
+        return cartMapper.toCartDTO(userCart);
     }
 
     @Override
-    @Transactional
     public String deleteProductFromCart(Long cartId, Long productId) {
+        return cartStore.withCartFrozen(cartId, () -> new TransactionTemplate(transactionManager)
+                .execute(status -> deleteProductFromCartInDatabase(cartId, productId)));
+    }
+
+    private String deleteProductFromCartInDatabase(Long cartId, Long productId) {
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
         CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
@@ -201,36 +208,23 @@ public class CartServiceImpl implements CartService {
             throw new ResourceNotFoundException("Product", "productId", productId);
         }
 
-        Double totalProductValue = cartItem.getProductPrice() * cartItem.getQuantity();
-        cart.setTotalPrice(cart.getTotalPrice() - totalProductValue);
+        cart.setTotalPrice(cart.getTotalPrice() - Money.times(cartItem.getProductPrice(), cartItem.getQuantity()));
         cartItemRepository.deleteCartItemByProductIdAndCartId(cartId, productId);
+        inventoryReservationService.release(cartId, productId);
 
         return "Product " + cartItem.getProduct().getProductName() + " has been removed from the cart";
     }
 
+    // Reprice the product in every cart with two statements, whatever the number of carts
     @Override
-    public void updateProductInCart(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart", "cartId", cartId));
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
-
-        CartItem cartItem = cartItemRepository.findCartItemByProductIdAndCartId(cartId, productId);
-        if (cartItem == null) {
-            throw new APIException("Product " + product.getProductName() + " is not available in the cart");
-        }
-
-        Double oldTotalProductPrice = cartItem.getProductPrice() * cartItem.getQuantity();
-        Double newTotalProductPrice = product.getSpecialPrice() * cartItem.getQuantity();
-        Double cartPrice = cart.getTotalPrice() - oldTotalProductPrice + newTotalProductPrice;
-
-        // Update new product unit price in the cart
-        cartItem.setProductPrice(product.getSpecialPrice());
-        // Update total price in the cart
-        cart.setTotalPrice(cartPrice);
-
-        cartItemRepository.save(cartItem);
-        cartRepository.save(cart);
+    public int repriceProduct(Long productId, long productPrice) {
+        return cartStore.withProductFrozen(productId, () -> new TransactionTemplate(transactionManager).execute(status -> {
+            if (cartItemRepository.updateProductPrice(productId, productPrice) == 0) {
+                return 0;
+            }
+
+            return cartRepository.recalculateTotalPriceForProduct(productId);
+        }));
     }
 
     private Cart getOrCreateCart() {
@@ -241,7 +235,6 @@ public class CartServiceImpl implements CartService {
         }
 
         Cart newCart = new Cart();
-        newCart.setTotalPrice(0.0);
         newCart.setUser(authUtil.loggedInUser());
         return cartRepository.save(newCart);
     }
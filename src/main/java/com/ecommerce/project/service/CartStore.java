@@ -0,0 +1,544 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.mapper.CartMapper;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CartItemRepository;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.InventoryReservationRepository;
+import com.ecommerce.project.repositories.InventoryReservationRepository.HeldQuantity;
+import com.ecommerce.project.service.InventoryReservationService.Hold;
+import com.ecommerce.project.util.Money;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Write-behind store for the carts being edited. Quantity changes are applied to the cart in memory (the stock is
+// held right away in the reservation ledger) and the changed lines are written to cart_items and
+// inventory_reservations in batches by a periodic flush.
+// Every other cart operation goes through the database, in a transaction run while the cart is frozen. Freezing
+// commits the pending changes of the cart first, in a short transaction of their own, before the transaction of the
+// operation takes its connection. The cart is dropped from the store once the operation is done. A frozen cart is
+// neither read nor changed in memory, so what is served from here never misses a change made through the database.
+@Component
+public class CartStore {
+    private static final Logger logger = LoggerFactory.getLogger(CartStore.class);
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private CartMapper cartMapper;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.app.cartIdleMs}")
+    private long idleMs;
+
+    // Guards adding and removing carts, so that a cart loaded while it is frozen is never registered
+    private final Lock registry = new ReentrantLock();
+    private final ConcurrentMap<String, CartState> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, CartState> byCartId = new ConcurrentHashMap<>();
+    // Also guarded by the registry lock: the products with a change in flight, and a count of the product changes
+    // started or completed, so that a cart loaded across a product change is not registered with stale details
+    private final Map<Long, Integer> changingProducts = new HashMap<>();
+    private volatile long productChanges;
+
+    public int size() {
+        return byCartId.size();
+    }
+
+    // The cart of the user as held in memory, or null when it has to be read from the database
+    public CartDTO find(String email) {
+        CartState state = byEmail.get(email);
+        if (state == null) {
+            return null;
+        }
+
+        state.lock.lock();
+        try {
+            if (!state.isServable()) {
+                return null;
+            }
+            state.lastAccess = System.currentTimeMillis();
+            return render(state);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    // Applies a +/- change to a line of the cart of the user, loading the cart on first use.
+    // Returns null when the change has to go through the database instead: no cart or no such line, a line dropping
+    // to zero, a cart frozen by a database change, or a product whose ledger is not loaded yet.
+    public CartDTO updateQuantity(String email, Long productId, int delta) {
+        while (true) {
+            CartState state = byEmail.get(email);
+            if (state == null && (state = load(email)) == null) {
+                return null;
+            }
+
+            state.lock.lock();
+            try {
+                // Dropped from the store in the meantime, start over from the database
+                if (state.evicted) {
+                    continue;
+                }
+                if (!state.isServable()) {
+                    return null;
+                }
+
+                Line line = state.lines.get(productId);
+                if (line == null || line.quantity + delta <= 0) {
+                    return null;
+                }
+                int quantity = line.quantity + delta;
+                if (!inventoryReservationService.adjustHold(productId, line.product.getProductName(), line.held, quantity)) {
+                    return null;
+                }
+
+                line.quantity = quantity;
+                line.held = quantity;
+                line.version++;
+                state.dirty = true;
+                state.lastAccess = System.currentTimeMillis();
+                return render(state);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+
+    // Runs a change of the cart through the database. The work opens its own transaction, this must not be called
+    // inside one: the pending changes are written with a connection of their own.
+    public <T> T withCartFrozen(String email, Supplier<T> work) {
+        requireNoTransaction();
+        return frozen(List.of(lookup(byEmail, email, () -> new CartState(email, null))), work);
+    }
+
+    public <T> T withCartFrozen(Long cartId, Supplier<T> work) {
+        requireNoTransaction();
+        return frozen(List.of(lookup(byCartId, cartId, () -> new CartState(null, cartId))), work);
+    }
+
+    // Runs a change of the product through the database. Carts with the product loaded until the work completes are
+    // not registered, they could hold the previous product details.
+    public <T> T withProductFrozen(Long productId, Supplier<T> work) {
+        requireNoTransaction();
+        List<CartState> states;
+        registry.lock();
+        try {
+            changingProducts.merge(productId, 1, Integer::sum);
+            productChanges++;
+            states = byCartId.values().stream()
+                    .filter(state -> state.lines != null && state.lines.containsKey(productId))
+                    .toList();
+            states.forEach(CartState::countFreeze);
+        } finally {
+            registry.unlock();
+        }
+
+        try {
+            return frozen(states, work);
+        } finally {
+            productChanged(productId);
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${spring.app.cartFlushMs}")
+    public void flush() {
+        writePending(byCartId.values(), false);
+        evictIdle();
+    }
+
+    // Writes the pending changes of the carts in the current transaction, skipping the carts being flushed.
+    // The periodic flush also skips the frozen carts, their freeze writes them.
+    private void writePending(Collection<CartState> candidates, boolean frozen) {
+        List<CartState> states = new ArrayList<>();
+        List<LineSnapshot> lines = new ArrayList<>();
+        for (CartState state : candidates) {
+            state.lock.lock();
+            try {
+                if (state.dirty && (frozen || state.isServable()) && !state.flushing) {
+                    state.flushing = true;
+                    states.add(state);
+                    lines.addAll(state.snapshot());
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+
+        if (!states.isEmpty()) {
+            List<Integer> recorded = new ArrayList<>();
+            afterCompletion(committed -> {
+                if (committed) {
+                    for (int i = 0; i < lines.size(); i++) {
+                        lines.get(i).flushed(recorded.get(i));
+                    }
+                }
+                for (CartState state : states) {
+                    state.lock.lock();
+                    try {
+                        state.dirty = state.hasDirtyLines();
+                        state.flushing = false;
+                        state.flushDone.signalAll();
+                    } finally {
+                        state.lock.unlock();
+                    }
+                }
+            });
+            recorded.addAll(write(lines));
+            logger.debug("Flushed {} cart lines of {} carts", lines.size(), states.size());
+        }
+    }
+
+    private CartState load(String email) {
+        long changes = productChanges;
+        Cart cart = cartRepository.findCartByEmail(email);
+        if (cart == null) {
+            return null;
+        }
+
+        Map<Long, Integer> held = reservationRepository.findHeldQuantitiesByCartId(cart.getCartId()).stream()
+                .collect(Collectors.toMap(HeldQuantity::getProductId, HeldQuantity::getQuantity));
+        CartState loaded = new CartState(email, cart.getCartId());
+        loaded.lines = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            Long productId = cartItem.getProduct().getProductId();
+            loaded.lines.put(productId, new Line(
+                    cartItem.getCartItemId(),
+                    cartMapper.toProductDTO(cartItem),
+                    cartItem.getProductPrice(),
+                    cartItem.getQuantity(),
+                    held.getOrDefault(productId, 0)
+            ));
+        }
+
+        registry.lock();
+        try {
+            CartState existing = byEmail.get(email);
+            if (existing == null) {
+                existing = byCartId.get(cart.getCartId());
+            }
+            if (existing != null) {
+                return existing;
+            }
+            // A product of the cart changed meanwhile, serve this change from the database
+            if (productChanges != changes || loaded.lines.keySet().stream().anyMatch(changingProducts::containsKey)) {
+                return null;
+            }
+            byEmail.put(email, loaded);
+            byCartId.put(cart.getCartId(), loaded);
+            return loaded;
+        } finally {
+            registry.unlock();
+        }
+    }
+
+    // Finds the cart to freeze and counts the freeze in, a placeholder stands for a cart that is not in the store
+    private <K> CartState lookup(ConcurrentMap<K, CartState> index, K key, Supplier<CartState> placeholder) {
+        registry.lock();
+        try {
+            CartState state = index.get(key);
+            if (state == null) {
+                state = placeholder.get();
+                index.put(key, state);
+            }
+            state.countFreeze();
+            return state;
+        } finally {
+            registry.unlock();
+        }
+    }
+
+    private <T> T frozen(List<CartState> states, Supplier<T> work) {
+        try {
+            writeFrozen(states);
+            return work.get();
+        } finally {
+            states.forEach(this::release);
+        }
+    }
+
+    // A frozen cart no longer changes in memory, so once its pending changes are committed the database is up to date.
+    // A flush in progress is awaited without holding a connection, the write gets one only for its own transaction.
+    private void writeFrozen(List<CartState> states) {
+        while (states.stream().anyMatch(CartState::hasPendingWrite)) {
+            states.forEach(CartState::awaitFlush);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> writePending(states, true));
+        }
+    }
+
+    private static void requireNoTransaction() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("A cart must be frozen before the transaction that changes it starts");
+        }
+    }
+
+    private void productChanged(Long productId) {
+        registry.lock();
+        try {
+            changingProducts.computeIfPresent(productId, (id, count) -> count == 1 ? null : count - 1);
+            productChanges++;
+        } finally {
+            registry.unlock();
+        }
+    }
+
+    private void release(CartState state) {
+        registry.lock();
+        try {
+            state.lock.lock();
+            try {
+                state.freezes--;
+                // Still dirty only if every write failed, then no work ran and the cart still matches the database
+                if (state.freezes == 0 && !state.dirty) {
+                    remove(state);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        } finally {
+            registry.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleMs;
+        for (CartState state : byCartId.values()) {
+            if (state.lastAccess > idleSince) {
+                continue;
+            }
+
+            registry.lock();
+            try {
+                state.lock.lock();
+                try {
+                    if (state.isServable() && !state.dirty && !state.flushing) {
+                        remove(state);
+                    }
+                } finally {
+                    state.lock.unlock();
+                }
+            } finally {
+                registry.unlock();
+            }
+        }
+    }
+
+    private void remove(CartState state) {
+        state.evicted = true;
+        if (state.email != null) {
+            byEmail.remove(state.email, state);
+        }
+        if (state.cartId != null) {
+            byCartId.remove(state.cartId, state);
+        }
+    }
+
+    // Quantities go to the cart items and holds, the totals are recomputed from the cart items with one statement.
+    // Hibernate batches the updates, so the cost of a flush barely depends on the number of carts.
+    private List<Integer> write(List<LineSnapshot> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, CartItem> cartItems = cartItemRepository.findAllById(lines.stream().map(LineSnapshot::cartItemId).toList())
+                .stream()
+                .collect(Collectors.toMap(CartItem::getCartItemId, Function.identity()));
+        List<Hold> holds = new ArrayList<>(lines.size());
+        for (LineSnapshot line : lines) {
+            CartItem cartItem = cartItems.get(line.cartItemId());
+            if (cartItem != null) {
+                cartItem.setQuantity(line.quantity());
+            }
+            // A line removed from the database meanwhile has released its hold, do not bring it back
+            holds.add(new Hold(line.cartId(), line.productId(), cartItem != null ? line.quantity() : 0, line.quantity() - line.durable()));
+        }
+
+        List<Hold> kept = holds.stream().filter(hold -> hold.quantity() > 0).toList();
+        Iterator<Integer> recordedKept = inventoryReservationService.recordHolds(kept).iterator();
+        List<Integer> recorded = holds.stream()
+                .map(hold -> hold.quantity() > 0 ? recordedKept.next() : 0)
+                .toList();
+
+        cartRepository.recalculateTotalPrice(lines.stream().map(LineSnapshot::cartId).collect(Collectors.toSet()));
+        return recorded;
+    }
+
+    private CartDTO render(CartState state) {
+        List<ProductDTO> products = new ArrayList<>(state.lines.size());
+        long totalPrice = 0;
+        for (Line line : state.lines.values()) {
+            ProductDTO product = productMapper.copy(line.product);
+            product.setQuantity(line.quantity);
+            products.add(product);
+            totalPrice += Money.times(line.price, line.quantity);
+        }
+        return new CartDTO(state.cartId, Money.toDouble(totalPrice), products);
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    // Fields are guarded by the lock of the cart
+    private static class CartState {
+        final String email;
+        final Long cartId;
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition flushDone = lock.newCondition();
+        // Null for a placeholder of a cart that is not held in memory
+        Map<Long, Line> lines;
+        boolean dirty;
+        boolean flushing;
+        int freezes;
+        boolean evicted;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        CartState(String email, Long cartId) {
+            this.email = email;
+            this.cartId = cartId;
+        }
+
+        void countFreeze() {
+            lock.lock();
+            try {
+                freezes++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isServable() {
+            return lines != null && freezes == 0 && !evicted;
+        }
+
+        // Once frozen, a cart can no longer become dirty
+        boolean hasPendingWrite() {
+            lock.lock();
+            try {
+                return dirty || flushing;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void awaitFlush() {
+            lock.lock();
+            try {
+                while (flushing) {
+                    flushDone.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<LineSnapshot> snapshot() {
+            return lines.values().stream()
+                    .filter(line -> line.version != line.flushedVersion)
+                    .map(line -> new LineSnapshot(this, line, line.quantity, line.durable, line.version))
+                    .toList();
+        }
+
+        boolean hasDirtyLines() {
+            return lines.values().stream().anyMatch(line -> line.version != line.flushedVersion);
+        }
+    }
+
+    private static class Line {
+        final Long cartItemId;
+        final ProductDTO product;
+        final long price;
+        int quantity;
+        // Quantity taken from the reservation ledger for this line, and the part of it saved in the reservation row
+        int held;
+        int durable;
+        long version;
+        long flushedVersion;
+
+        Line(Long cartItemId, ProductDTO product, long price, int quantity, int held) {
+            this.cartItemId = cartItemId;
+            this.product = product;
+            this.price = price;
+            this.quantity = quantity;
+            this.held = held;
+            this.durable = held;
+        }
+
+        Long productId() {
+            return product.getProductId();
+        }
+    }
+
+    private record LineSnapshot(CartState state, Line line, int quantity, int durable, long version) {
+        Long cartId() {
+            return state.cartId;
+        }
+
+        Long cartItemId() {
+            return line.cartItemId;
+        }
+
+        Long productId() {
+            return line.productId();
+        }
+
+        // A line changed again since the snapshot stays dirty. A hold that could not be taken again in full
+        // is brought down to what is actually held.
+        void flushed(int recorded) {
+            state.lock.lock();
+            try {
+                line.durable = recorded;
+                line.held -= quantity - recorded;
+                if (line.version == version) {
+                    line.flushedVersion = version;
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+    }
+}
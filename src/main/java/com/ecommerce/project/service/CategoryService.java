@@ -1,10 +1,12 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
 
 public interface CategoryService {
     PaginationResponse<CategoryDTO> getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    CursorPaginationResponse<CategoryDTO> getAllCategories(String after, Integer pageSize, String sortBy, String sortOrder);
     CategoryDTO createCategory(CategoryDTO category);
     CategoryDTO updateCategory(Long categoryId, CategoryDTO categoryDTO);
     CategoryDTO deleteCategory(Long categoryId);
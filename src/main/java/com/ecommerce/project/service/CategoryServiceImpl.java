@@ -2,16 +2,15 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.CategoryMapper;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
 import com.ecommerce.project.repositories.CategoryRepository;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
-import java.util.List;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
@@ -20,59 +19,76 @@ public class CategoryServiceImpl implements CategoryService {
     private CategoryRepository categoryRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private CategoryMapper categoryMapper;
 
     @Autowired
     private PaginationService paginationService;
 
+    @Autowired
+    private CategorySnapshot categorySnapshot;
+
     @Override
     public PaginationResponse<CategoryDTO> getAllCategories(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Pageable pageDetails = paginationService.getPageable(pageNumber, pageSize, sortBy, sortOrder);
-        Page<Category> categoryPage = categoryRepository.findAll(pageDetails);
-        List<Category> categories = categoryPage.getContent();
-        if (categories.isEmpty())
+        Page<CategoryDTO> categoryPage = categorySnapshot.findAll(pageDetails);
+        if (categoryPage.isEmpty())
             throw new APIException("No categories created.");
 
-        List<CategoryDTO> categoryDTOs = categories.stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
-                .toList();
+        return paginationService.getPaginationResponse(categoryPage.getContent(), categoryPage);
+    }
+
+    @Override
+    public CursorPaginationResponse<CategoryDTO> getAllCategories(String after, Integer pageSize, String sortBy, String sortOrder) {
+        ScrollPosition position = paginationService.getScrollPosition(after, sortBy, Category.class, "categoryId");
+        Window<CategoryDTO> categoryWindow = categorySnapshot.findAll(
+                position,
+                paginationService.getSort(sortBy, sortOrder),
+                pageSize
+        );
+        if (categoryWindow.isEmpty() && position.isInitial())
+            throw new APIException("No categories created.");
 
-        return paginationService.getPaginationResponse(categoryDTOs, categoryPage);
+        return paginationService.getCursorPaginationResponse(categoryWindow.getContent(), categoryWindow, pageSize);
     }
 
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        Category category = modelMapper.map(categoryDTO, Category.class);
-        if (categoryRepository.existsByCategoryName(category.getCategoryName()))
+        Category category = categoryMapper.toCategory(categoryDTO);
+        if (categorySnapshot.existsByName(category.getCategoryName()))
             throw new APIException("Category with the name " + category.getCategoryName() + " already exists !");
 
         Category savedCategory = categoryRepository.save(category);
+        CategoryDTO savedCategoryDTO = categoryMapper.toCategoryDTO(savedCategory);
+        categorySnapshot.put(savedCategoryDTO);
 
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        return savedCategoryDTO;
     }
 
     @Override
     public CategoryDTO updateCategory(Long categoryId, CategoryDTO categoryDTO) {
-        if (! categoryRepository.existsById(categoryId))
+        if (! categorySnapshot.existsById(categoryId))
             throw new ResourceNotFoundException("Category", "categoryId", categoryId);
-        Category category = modelMapper.map(categoryDTO, Category.class);
-        if (categoryRepository.existsByCategoryIdNotAndCategoryName(categoryId, category.getCategoryName()))
+        Category category = categoryMapper.toCategory(categoryDTO);
+        if (categorySnapshot.existsByNameExcept(categoryId, category.getCategoryName()))
             throw new APIException("Category with the name " + category.getCategoryName() + " already exists !");
 
         // Set ID of the input category (do this to avoid having to set each field on the existing category data)
         category.setCategoryId(categoryId);
         Category updatedCategory = categoryRepository.save(category);
+        CategoryDTO updatedCategoryDTO = categoryMapper.toCategoryDTO(updatedCategory);
+        categorySnapshot.put(updatedCategoryDTO);
 
-        return modelMapper.map(updatedCategory, CategoryDTO.class);
+        return updatedCategoryDTO;
     }
 
     @Override
     public CategoryDTO deleteCategory(Long categoryId) {
-        Category category = categoryRepository
+        CategoryDTO category = categorySnapshot
                 .findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
 
-        categoryRepository.delete(category);
-        return modelMapper.map(category, CategoryDTO.class);
+        categoryRepository.deleteById(categoryId);
+        categorySnapshot.remove(categoryId);
+        return category;
     }
 }
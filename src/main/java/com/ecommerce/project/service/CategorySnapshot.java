@@ -0,0 +1,176 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.mapper.CategoryMapper;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.repositories.CategoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.*;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Immutable in-memory copy of all categories, replaced as a whole on every write (copy-on-write).
+// Category reads never reach the database. The snapshot is reloaded periodically
+// to pick up categories written by other instances.
+// Returned DTOs are shared between requests and must be treated as read-only.
+@Component
+public class CategorySnapshot {
+    private static final Comparator<CategoryDTO> BY_ID =
+            Comparator.comparing(CategoryDTO::getCategoryId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    // Keyset scrolling appends the id as ascending tie-breaker, whatever the direction of the sort
+    private static final Comparator<CategoryDTO> BY_NAME =
+            Comparator.comparing(CategoryDTO::getCategoryName).thenComparing(BY_ID);
+    private static final Comparator<CategoryDTO> BY_NAME_DESC =
+            Comparator.comparing(CategoryDTO::getCategoryName).reversed().thenComparing(BY_ID);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public Optional<CategoryDTO> findById(Long categoryId) {
+        return Optional.ofNullable(current().byId().get(categoryId));
+    }
+
+    public boolean existsById(Long categoryId) {
+        return current().byId().containsKey(categoryId);
+    }
+
+    public boolean existsByName(String categoryName) {
+        return current().idsByName().containsKey(categoryName);
+    }
+
+    public boolean existsByNameExcept(Long categoryId, String categoryName) {
+        Long owner = current().idsByName().get(categoryName);
+        return owner != null && !owner.equals(categoryId);
+    }
+
+    public Page<CategoryDTO> findAll(Pageable pageable) {
+        CategoryDTO[] categories = current().sorted(pageable.getSort()).categories();
+        int fromIndex = (int) Math.min(pageable.getOffset(), categories.length);
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), categories.length);
+
+        return new PageImpl<>(List.of(Arrays.copyOfRange(categories, fromIndex, toIndex)), pageable, categories.length);
+    }
+
+    // Same contract as a keyset query: the categories strictly after the position in the sort order
+    public Window<CategoryDTO> findAll(ScrollPosition position, Sort sort, int limit) {
+        SortedCategories sorted = current().sorted(sort);
+        String property = sort.iterator().next().getProperty();
+        Map<String, Object> keys = ((KeysetScrollPosition) position).getKeys();
+
+        int fromIndex = 0;
+        if (!keys.isEmpty()) {
+            CategoryDTO probe = new CategoryDTO((Long) keys.get("categoryId"), (String) keys.get("categoryName"));
+            int index = Arrays.binarySearch(sorted.categories(), probe, sorted.order());
+            fromIndex = index >= 0 ? index + 1 : -index - 1;
+        }
+        int toIndex = Math.min(fromIndex + limit, sorted.categories().length);
+
+        List<CategoryDTO> content = List.of(Arrays.copyOfRange(sorted.categories(), fromIndex, toIndex));
+        return Window.from(
+                content,
+                index -> ScrollPosition.forward(positionKeys(content.get(index), property)),
+                toIndex < sorted.categories().length
+        );
+    }
+
+    public void put(CategoryDTO category) {
+        current();
+        current.updateAndGet(snapshot -> snapshot.with(category));
+    }
+
+    public void remove(Long categoryId) {
+        current();
+        current.updateAndGet(snapshot -> snapshot.without(categoryId));
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.categorySnapshotRefreshMs}", initialDelayString = "${spring.app.categorySnapshotRefreshMs}")
+    public void refresh() {
+        reload();
+    }
+
+    private Snapshot current() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot : reload();
+    }
+
+    // A write that lands while the categories are being read wins, the next refresh picks up the rest
+    private Snapshot reload() {
+        Snapshot before = current.get();
+        Snapshot loaded = Snapshot.of(categoryRepository.findAll().stream()
+                .map(categoryMapper::toCategoryDTO)
+                .toList());
+
+        return current.compareAndSet(before, loaded) ? loaded : current.get();
+    }
+
+    private static Map<String, Object> positionKeys(CategoryDTO category, String property) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(property, property.equals("categoryName") ? category.getCategoryName() : category.getCategoryId());
+        keys.put("categoryId", category.getCategoryId());
+        return keys;
+    }
+
+    private record SortedCategories(CategoryDTO[] categories, Comparator<CategoryDTO> order) {
+        static SortedCategories of(Collection<CategoryDTO> categories, Comparator<CategoryDTO> order) {
+            CategoryDTO[] sorted = categories.toArray(CategoryDTO[]::new);
+            Arrays.sort(sorted, order);
+            return new SortedCategories(sorted, order);
+        }
+    }
+
+    private record Snapshot(
+            Map<Long, CategoryDTO> byId,
+            Map<String, Long> idsByName,
+            SortedCategories idAscending,
+            SortedCategories idDescending,
+            SortedCategories nameAscending,
+            SortedCategories nameDescending
+    ) {
+        static Snapshot of(Collection<CategoryDTO> categories) {
+            Map<Long, CategoryDTO> byId = new HashMap<>();
+            Map<String, Long> idsByName = new HashMap<>();
+            categories.forEach(category -> {
+                byId.put(category.getCategoryId(), category);
+                idsByName.put(category.getCategoryName(), category.getCategoryId());
+            });
+
+            return new Snapshot(
+                    Map.copyOf(byId),
+                    Map.copyOf(idsByName),
+                    SortedCategories.of(categories, BY_ID),
+                    SortedCategories.of(categories, BY_ID.reversed()),
+                    SortedCategories.of(categories, BY_NAME),
+                    SortedCategories.of(categories, BY_NAME_DESC)
+            );
+        }
+
+        Snapshot with(CategoryDTO category) {
+            Map<Long, CategoryDTO> categories = new HashMap<>(byId);
+            categories.put(category.getCategoryId(), category);
+            return of(categories.values());
+        }
+
+        Snapshot without(Long categoryId) {
+            Map<Long, CategoryDTO> categories = new HashMap<>(byId);
+            categories.remove(categoryId);
+            return of(categories.values());
+        }
+
+        SortedCategories sorted(Sort sort) {
+            Sort.Order order = sort.iterator().next();
+            return switch (order.getProperty()) {
+                case "categoryId" -> order.isAscending() ? idAscending : idDescending;
+                case "categoryName" -> order.isAscending() ? nameAscending : nameDescending;
+                default -> throw new APIException("Categories cannot be sorted by " + order.getProperty());
+            };
+        }
+    }
+}
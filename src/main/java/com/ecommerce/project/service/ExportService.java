@@ -0,0 +1,12 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.DataFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    void exportProducts(DataFormat format, OutputStream outputStream) throws IOException;
+
+    void exportOrders(DataFormat format, OutputStream outputStream) throws IOException;
+}
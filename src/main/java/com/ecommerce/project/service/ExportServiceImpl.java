@@ -0,0 +1,110 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.OrderItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.OrderRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.DataFormat;
+import com.ecommerce.project.util.ExportWriter;
+import com.ecommerce.project.util.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Full dumps of the catalog and of the orders. Rows are read from a database stream and written out one by one,
+// each entity is detached once written, so memory use does not depend on the size of the tables.
+@Service
+public class ExportServiceImpl implements ExportService {
+    private static final String[] PRODUCT_COLUMNS = {
+            "productId", "productName", "description", "categoryId", "quantity", "price", "discount", "specialPrice", "image"
+    };
+    private static final String[] ORDER_COLUMNS = {
+            "orderId", "orderDate", "email", "orderStatus", "totalAmount", "addressId",
+            "orderItemId", "productId", "quantity", "discount", "orderedProductPrice"
+    };
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void exportProducts(DataFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Product> products = productRepository.streamAll();
+             ExportWriter writer = new ExportWriter(format, outputStream, objectMapper.getFactory(), PRODUCT_COLUMNS)) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                writer.row(
+                        product.getProductId(),
+                        product.getProductName(),
+                        product.getDescription(),
+                        // The id of a lazy association is read from its proxy without loading it
+                        product.getCategory() != null ? product.getCategory().getCategoryId() : null,
+                        product.getQuantity(),
+                        product.getPrice(),
+                        product.getDiscount(),
+                        product.getSpecialPrice(),
+                        product.getImage()
+                );
+                entityManager.detach(product);
+            }
+        }
+    }
+
+    // One row per order line, with the order columns repeated. An order without lines gets one row with empty
+    // line columns.
+    @Override
+    @Transactional
+    public void exportOrders(DataFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Order> orders = orderRepository.streamAllWithItems();
+             ExportWriter writer = new ExportWriter(format, outputStream, objectMapper.getFactory(), ORDER_COLUMNS)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                if (order.getOrderItems().isEmpty()) {
+                    writeOrderRow(writer, order, null);
+                }
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    writeOrderRow(writer, order, orderItem);
+                }
+                // Drop the order with its lines and the proxies of their associations (address, payment, product),
+                // which detaching one by one would leave behind
+                entityManager.clear();
+            }
+        }
+    }
+
+    private static void writeOrderRow(ExportWriter writer, Order order, OrderItem orderItem) throws IOException {
+        writer.row(
+                order.getOrderId(),
+                order.getOrderDate() != null ? order.getOrderDate().toString() : null,
+                order.getEmail(),
+                order.getOrderStatus(),
+                Money.toDouble(order.getTotalAmount()),
+                order.getAddress() != null ? order.getAddress().getAddressId() : null,
+                orderItem != null ? orderItem.getOrderItemId() : null,
+                orderItem != null && orderItem.getProduct() != null ? orderItem.getProduct().getProductId() : null,
+                orderItem != null ? orderItem.getQuantity() : null,
+                orderItem != null ? orderItem.getDiscount() : null,
+                orderItem != null ? Money.toDouble(orderItem.getOrderedProductPrice()) : null
+        );
+    }
+}
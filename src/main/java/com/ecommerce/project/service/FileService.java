@@ -1,9 +1,8 @@
 package com.ecommerce.project.service;
 
-import org.springframework.web.multipart.MultipartFile;
-
 import java.io.IOException;
+import java.io.InputStream;
 
 public interface FileService {
-    String uploadFile(String directoryPath, MultipartFile file) throws IOException;
+    String uploadFile(String directoryPath, InputStream inputStream, String fileExt) throws IOException;
 }
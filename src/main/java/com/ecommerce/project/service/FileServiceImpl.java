@@ -1,33 +1,122 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Objects;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+// Uploads are written to a temp file next to their target, synced, then moved into place in one step and the
+// directory synced, so that a file is either complete and durable under its name or not there at all.
+// Only a few uploads write at the same time, the others wait for a short while and are then turned away.
 @Service
 public class FileServiceImpl implements FileService {
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private final long maxFileSize;
+    private final int maxConcurrentUploads;
+    private final long uploadWaitMs;
+    private final Semaphore uploads;
+
+    // Directories known to exist, created on their first upload
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+
+    public FileServiceImpl(
+            @Value("${spring.app.maxUploadBytes}") long maxFileSize,
+            @Value("${spring.app.maxConcurrentUploads}") int maxConcurrentUploads,
+            @Value("${spring.app.uploadWaitMs}") long uploadWaitMs
+    ) {
+        this.maxFileSize = maxFileSize;
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        this.uploadWaitMs = uploadWaitMs;
+        this.uploads = new Semaphore(maxConcurrentUploads, true);
+    }
 
     @Override
-    public String uploadFile(String directoryPath, MultipartFile file) throws IOException {
-        String originalFileName = Objects.requireNonNull(file.getOriginalFilename());
-        String randomUniqueId = UUID.randomUUID().toString();
-        String fileExt = originalFileName.substring(originalFileName.lastIndexOf('.'));
-        String fileName = randomUniqueId.concat(fileExt);
-        String filePath = directoryPath + File.separatorChar + fileName;
-
-        File folder = new File(directoryPath);
-        if (!folder.exists()) {
-            boolean mkdirResult = folder.mkdir();
+    public String uploadFile(String directoryPath, InputStream inputStream, String fileExt) throws IOException {
+        acquire();
+        try {
+            Path directory = directory(directoryPath);
+            String fileName = UUID.randomUUID().toString().concat(fileExt);
+            Path tempFile = Files.createTempFile(directory, ".upload-", ".tmp");
+            try {
+                write(inputStream, tempFile);
+                Files.move(tempFile, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+                force(directory);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            return fileName;
+        } finally {
+            uploads.release();
+        }
+    }
+
+    // The channel pulls from the stream straight into the file, with no copy through a buffer of ours.
+    // One byte more than the limit is asked for, to tell a file of exactly the limit from a larger one.
+    private void write(InputStream inputStream, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(inputStream)) {
+            long size = 0;
+            long transferred;
+            do {
+                transferred = channel.transferFrom(source, size, maxFileSize + 1 - size);
+                size += transferred;
+            } while (transferred > 0 && size <= maxFileSize);
+
+            if (size > maxFileSize)
+                throw new APIException("File is larger than " + maxFileSize + " bytes");
+            channel.force(true);
         }
+    }
+
+    // The rename lives in the directory, which is synced too so that the new name survives a crash.
+    // Windows cannot open a directory as a channel, NTFS journals the rename itself.
+    private static void force(Path directory) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
 
-        Files.copy(file.getInputStream(), Paths.get(filePath));
+    private Path directory(String directoryPath) throws IOException {
+        Path directory = Paths.get(directoryPath);
+        if (!directories.contains(directory)) {
+            Files.createDirectories(directory);
+            directories.add(directory);
+        }
+        return directory;
+    }
 
-        return fileName;
+    private void acquire() {
+        try {
+            if (!uploads.tryAcquire(uploadWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new TooManyRequestsException(
+                        "Upload limit of " + maxConcurrentUploads + " reached, try again later"
+                );
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new TooManyRequestsException("Interrupted while waiting to upload");
+        }
     }
 }
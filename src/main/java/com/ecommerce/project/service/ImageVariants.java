@@ -0,0 +1,221 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.util.BoundedTtlCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+// Downscaled copies of the product images, made in the background by a small pool of threads so that uploads do not
+// wait for them. A variant fits in a square of its size, keeps the format of the original, and is stored under
+// {image directory}/{variant}/{file name}. A variant found missing when it is requested is made again.
+@Component
+public class ImageVariants {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariants.class);
+
+    // ImageIO format names by file extension. Other formats (WebP) are not decoded by the JDK.
+    private static final Map<String, String> FORMATS = Map.of(
+            "jpg", "jpg",
+            "jpeg", "jpg",
+            "png", "png",
+            "gif", "gif"
+    );
+
+    // From the largest down, each one is scaled from the one before
+    public enum Variant {
+        DETAIL(1000),
+        LISTING(400),
+        THUMBNAIL(150);
+
+        private final int size;
+
+        Variant(int size) {
+            this.size = size;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public String getPath() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Variant of(String path) {
+            for (Variant variant : values()) {
+                if (variant.getPath().equals(path)) {
+                    return variant;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final int MAX_FAILED_IMAGES = 10000;
+
+    private final Path directory;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+    // Originals whose variants are queued or being made, so that a burst of requests queues them once
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // Originals whose variants could not be made, not queued again before their entry expires.
+    // Requests for a missing variant would otherwise decode such an image over and over.
+    private final BoundedTtlCache<String, Boolean> failed;
+
+    public ImageVariants(
+            @Value("${project.image_directory}") String imageDirectory,
+            @Value("${spring.app.imageVariantThreads}") int threads,
+            @Value("${spring.app.imageVariantQueueSize}") int queueSize,
+            @Value("${spring.app.imageVariantMaxPixels}") long maxPixels,
+            @Value("${spring.app.imageVariantRetryMs}") long retryMs
+    ) {
+        this.directory = Paths.get(imageDirectory).toAbsolutePath().normalize();
+        this.maxPixels = maxPixels;
+        this.failed = new BoundedTtlCache<>("failedImageVariants", MAX_FAILED_IMAGES, retryMs);
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("image-variants-", 0).daemon().factory()
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Path getDirectory(Variant variant) {
+        return directory.resolve(variant.getPath());
+    }
+
+    // Queues the missing variants of an image. When the queue is full the image is skipped,
+    // its variants are made on the first request that finds them missing.
+    public void generate(String fileName) {
+        if (hasFailed(fileName) || !pending.add(fileName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateNow(fileName);
+                } catch (IOException | RuntimeException e) {
+                    failed.put(fileName, true);
+                    logger.warn("Image variants of {} could not be made", fileName, e);
+                } finally {
+                    pending.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(fileName);
+            logger.warn("Image variant queue is full, {} skipped", fileName);
+        }
+    }
+
+    private void generateNow(String fileName) throws IOException {
+        Path original = directory.resolve(fileName);
+        if (!Files.isRegularFile(original)) {
+            return;
+        }
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        String format = FORMATS.get(extension);
+        BufferedImage image = format != null ? read(original) : null;
+
+        for (Variant variant : Variant.values()) {
+            Path target = getDirectory(variant).resolve(fileName);
+            if (image != null && (image.getWidth() > variant.getSize() || image.getHeight() > variant.getSize())) {
+                image = scale(image, variant.getSize(), !format.equals("jpg"));
+            }
+            if (Files.exists(target)) {
+                continue;
+            }
+
+            Files.createDirectories(target.getParent());
+            Path tempFile = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+            try {
+                // Images the JDK cannot decode are served as they are
+                if (image == null || !ImageIO.write(image, format, tempFile.toFile())) {
+                    Files.copy(original, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        }
+    }
+
+    boolean hasFailed(String fileName) {
+        return failed.get(fileName) != null;
+    }
+
+    // The size is read from the header first: a small file can declare a huge image,
+    // which would take gigabytes once decoded. Null when no reader knows the format.
+    private BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels)
+                    throw new IOException("Image of " + pixels + " pixels is above the limit of " + maxPixels);
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves the image until it is close to the target and finishes with one more step. A single bilinear step
+    // straight down to a much smaller size would sample only a few of the pixels and alias.
+    private static BufferedImage scale(BufferedImage image, int size, boolean alpha) {
+        double ratio = Math.min((double) size / image.getWidth(), (double) size / image.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            scaled = draw(scaled, width, height, alpha);
+        } while (width != targetWidth || height != targetHeight);
+        return scaled;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+}
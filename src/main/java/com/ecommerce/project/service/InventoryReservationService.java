@@ -0,0 +1,29 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Product;
+
+import java.util.List;
+
+public interface InventoryReservationService {
+    void reserve(Cart cart, Product product, int quantity);
+
+    void release(Long cartId, Long productId);
+
+    void commit(Cart cart);
+
+    void adjustStock(Long productId, int delta);
+
+    void evict(Long productId);
+
+    void releaseExpired();
+
+    boolean adjustHold(Long productId, String productName, int held, int quantity);
+
+    List<Integer> recordHolds(List<Hold> holds);
+
+    // The hold of a cart line changed in memory by the cart store: unrecorded is the part of the quantity
+    // that has already been taken from the ledger but is not in the reservation row yet
+    record Hold(Long cartId, Long productId, int quantity, int unrecorded) {
+    }
+}
@@ -0,0 +1,320 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.InventoryReservation;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.InventoryReservationRepository;
+import com.ecommerce.project.repositories.InventoryReservationRepository.ExpiredReservation;
+import com.ecommerce.project.repositories.InventoryReservationRepository.HeldQuantity;
+import com.ecommerce.project.repositories.ProductRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Holds stock for cart lines for a limited time.
+// The reservation table is the durable record, availability checks are answered by an in-memory ledger
+// (stock that is neither sold nor held, per product) so that adding to the cart never locks the product row.
+@Service
+public class InventoryReservationServiceImpl implements InventoryReservationService {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationServiceImpl.class);
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Value("${spring.app.reservationTtlMs}")
+    private long reservationTtlMs;
+
+    private final ConcurrentMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    // Sets the hold of the cart line to the given quantity and restarts its timer
+    @Override
+    @Transactional
+    public void reserve(Cart cart, Product product, int quantity) {
+        InventoryReservation reservation = reservationRepository.findByCartIdAndProductId(cart.getCartId(), product.getProductId());
+        int held = reservation != null ? reservation.getQuantity() : 0;
+
+        if (quantity > held && !take(product, quantity - held)) {
+            throw new APIException(
+                    "Please make an order of the " + product.getProductName() +
+                    " less than or equal to the quantity: " + (ledger(product).get() + held));
+        }
+        if (quantity < held) {
+            giveBack(product.getProductId(), held - quantity);
+        }
+
+        if (reservation == null) {
+            reservation = new InventoryReservation();
+            reservation.setCart(cart);
+            reservation.setProduct(product);
+        }
+        reservation.setQuantity(quantity);
+        reservation.setExpiresAt(Instant.now().plusMillis(reservationTtlMs));
+        reservationRepository.save(reservation);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long cartId, Long productId) {
+        InventoryReservation reservation = reservationRepository.findByCartIdAndProductId(cartId, productId);
+        if (reservation == null) {
+            return;
+        }
+
+        reservationRepository.delete(reservation);
+        giveBack(productId, reservation.getQuantity());
+    }
+
+    // Turns the holds of the cart into sales. Lines whose hold has expired (or never existed) are reserved again,
+    // the product rows themselves are only touched by the bulk stock update of the checkout.
+    @Override
+    @Transactional
+    public void commit(Cart cart) {
+        List<HeldQuantity> holds = reservationRepository.findHeldQuantitiesByCartId(cart.getCartId());
+        Map<Long, Integer> held = holds.stream()
+                .collect(Collectors.toMap(HeldQuantity::getProductId, HeldQuantity::getQuantity));
+        loadLedgers(cart.getCartItems().stream().map(CartItem::getProduct).toList());
+
+        for (CartItem cartItem : cart.getCartItems()) {
+            Product product = cartItem.getProduct();
+            Integer heldQuantity = held.remove(product.getProductId());
+            int missing = cartItem.getQuantity() - (heldQuantity != null ? heldQuantity : 0);
+
+            if (missing > 0 && !take(product, missing)) {
+                throw new APIException(product.getProductName() + " is no longer available in the requested quantity");
+            }
+            if (missing < 0) {
+                giveBack(product.getProductId(), -missing);
+            }
+        }
+        // Holds without a matching cart line are simply released
+        held.forEach(this::giveBack);
+
+        // A hold swept by the expiry job in the meantime would otherwise be released twice
+        if (reservationRepository.deleteAllByCartId(cart.getCartId()) != holds.size()) {
+            throw new APIException("Cart reservations have changed during checkout, please try again");
+        }
+    }
+
+    // Applies stock changes made outside of the reservation flow (e.g. an admin updating the product quantity)
+    @Override
+    public void adjustStock(Long productId, int delta) {
+        AtomicInteger stock = available.get(productId);
+        if (stock == null) {
+            return;
+        }
+
+        if (delta < 0) {
+            stock.addAndGet(delta);
+            onRollback(() -> stock.addAndGet(-delta));
+        } else if (delta > 0) {
+            afterCommit(() -> stock.addAndGet(delta));
+        }
+    }
+
+    @Override
+    public void evict(Long productId) {
+        available.remove(productId);
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${spring.app.reservationSweepMs}")
+    public void releaseExpired() {
+        Instant now = Instant.now();
+        List<ExpiredReservation> expired = reservationRepository.findExpired(now, Limit.of(SWEEP_BATCH_SIZE));
+
+        int released = 0;
+        for (ExpiredReservation reservation : expired) {
+            // Skip holds that were refreshed or checked out since they were selected
+            if (reservationRepository.deleteExpired(reservation.getReservationId(), now) == 1) {
+                giveBack(reservation.getProductId(), reservation.getQuantity());
+                released++;
+            }
+        }
+
+        if (released > 0) {
+            logger.info("Released {} expired inventory reservations", released);
+        }
+    }
+
+    // Moves the hold of a cart line kept in memory from held to quantity, without touching the database.
+    // Returns false when the ledger of the product is not loaded, the change then has to go through reserve.
+    @Override
+    public boolean adjustHold(Long productId, String productName, int held, int quantity) {
+        AtomicInteger stock = available.get(productId);
+        if (stock == null) {
+            return false;
+        }
+
+        if (quantity > held && !take(stock, quantity - held)) {
+            throw new APIException(
+                    "Please make an order of the " + productName +
+                    " less than or equal to the quantity: " + (stock.get() + held));
+        }
+        if (quantity < held) {
+            giveBack(productId, held - quantity);
+        }
+        return true;
+    }
+
+    // Writes the holds adjusted in memory to their reservation rows and restarts their timer.
+    // Returns the quantity actually held for each line, which is lower than requested when a hold swept
+    // by the expiry job (its stock already given back) cannot be taken again in full.
+    @Override
+    @Transactional
+    public List<Integer> recordHolds(List<Hold> holds) {
+        Set<Long> cartIds = holds.stream().map(Hold::cartId).collect(Collectors.toSet());
+        Map<List<Long>, InventoryReservation> reservations = reservationRepository.findByCartIds(cartIds).stream()
+                .collect(Collectors.toMap(
+                        reservation -> List.of(reservation.getCart().getCartId(), reservation.getProduct().getProductId()),
+                        Function.identity()));
+        Instant expiresAt = Instant.now().plusMillis(reservationTtlMs);
+
+        List<Integer> recorded = new ArrayList<>(holds.size());
+        for (Hold hold : holds) {
+            InventoryReservation reservation = reservations.get(List.of(hold.cartId(), hold.productId()));
+            int quantity = hold.quantity();
+            if (reservation == null) {
+                // Only the unrecorded part is still out of the ledger, take the rest again
+                Product product = productRepository.getReferenceById(hold.productId());
+                AtomicInteger stock = ledger(product);
+                if (!take(stock, quantity - hold.unrecorded())) {
+                    quantity = Math.max(hold.unrecorded(), 0);
+                    if (hold.unrecorded() < 0) {
+                        // Stock given back twice, by the cart store and by the expiry job
+                        stock.addAndGet(hold.unrecorded());
+                        onRollback(() -> stock.addAndGet(-hold.unrecorded()));
+                    }
+                }
+                if (quantity == 0) {
+                    recorded.add(0);
+                    continue;
+                }
+
+                reservation = new InventoryReservation();
+                reservation.setCart(cartRepository.getReferenceById(hold.cartId()));
+                reservation.setProduct(product);
+            }
+            reservation.setQuantity(quantity);
+            reservation.setExpiresAt(expiresAt);
+            reservationRepository.save(reservation);
+            recorded.add(quantity);
+        }
+        return recorded;
+    }
+
+    // Stock leaving the ledger is taken right away and handed back if the transaction rolls back,
+    // stock returning to the ledger only becomes available once the transaction has committed
+    private boolean take(Product product, int quantity) {
+        return take(ledger(product), quantity);
+    }
+
+    private boolean take(AtomicInteger stock, int quantity) {
+        int current;
+        do {
+            current = stock.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!stock.compareAndSet(current, current - quantity));
+
+        onRollback(() -> stock.addAndGet(quantity));
+        return true;
+    }
+
+    private void giveBack(Long productId, int quantity) {
+        afterCommit(() -> {
+            AtomicInteger stock = available.get(productId);
+            if (stock != null) {
+                stock.addAndGet(quantity);
+            }
+        });
+    }
+
+    // The ledger of a product is built on first use from its stock minus the quantities currently held
+    private AtomicInteger ledger(Product product) {
+        AtomicInteger stock = available.get(product.getProductId());
+        if (stock != null) {
+            return stock;
+        }
+
+        long held = reservationRepository.sumQuantityByProductId(product.getProductId());
+        AtomicInteger loaded = new AtomicInteger((int) (Objects.requireNonNullElse(product.getQuantity(), 0) - held));
+        stock = available.putIfAbsent(product.getProductId(), loaded);
+        return stock != null ? stock : loaded;
+    }
+
+    // Builds the missing ledgers of several products with a single query
+    private void loadLedgers(List<Product> products) {
+        Map<Long, Product> missing = products.stream()
+                .filter(product -> !available.containsKey(product.getProductId()))
+                .collect(Collectors.toMap(Product::getProductId, Function.identity(), (first, second) -> first));
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> held = reservationRepository.sumQuantityByProductIds(missing.keySet()).stream()
+                .collect(Collectors.toMap(HeldQuantity::getProductId, HeldQuantity::getQuantity));
+        missing.forEach((productId, product) -> available.putIfAbsent(productId, new AtomicInteger(
+                Objects.requireNonNullElse(product.getQuantity(), 0) - held.getOrDefault(productId, 0))));
+    }
+
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
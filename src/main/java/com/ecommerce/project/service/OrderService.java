@@ -1,9 +1,7 @@
 package com.ecommerce.project.service;
 
 import com.ecommerce.project.payload.OrderDTO;
-import jakarta.transaction.Transactional;
 
 public interface OrderService {
-    @Transactional
     OrderDTO placeOrder(String email, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage);
 }
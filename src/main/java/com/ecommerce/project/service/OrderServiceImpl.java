@@ -2,18 +2,22 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.OrderMapper;
 import com.ecommerce.project.model.*;
 import com.ecommerce.project.payload.OrderDTO;
-import com.ecommerce.project.payload.OrderItemDTO;
 import com.ecommerce.project.repositories.*;
-import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -36,14 +40,31 @@ public class OrderServiceImpl implements OrderService {
     ProductRepository productRepository;
 
     @Autowired
-    CartService cartService;
+    CartItemRepository cartItemRepository;
 
     @Autowired
-    ModelMapper modelMapper;
+    InventoryReservationService inventoryReservationService;
 
+    @Autowired
+    CartStore cartStore;
+
+    @Autowired
+    OrderMapper orderMapper;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // The changes still held in the cart store are written before the order transaction starts
     @Override
-    @Transactional
     public OrderDTO placeOrder(String email, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
+        return cartStore.withCartFrozen(email, () -> new TransactionTemplate(transactionManager).execute(status ->
+                placeOrderInDatabase(email, addressId, paymentMethod, pgName, pgPaymentId, pgStatus, pgResponseMessage)));
+    }
+
+    private OrderDTO placeOrderInDatabase(String email, Long addressId, String paymentMethod, String pgName, String pgPaymentId, String pgStatus, String pgResponseMessage) {
         // Getting user cart
         Cart cart = cartRepository.findCartByEmail(email);
         if (cart == null) {
@@ -57,14 +78,15 @@ public class OrderServiceImpl implements OrderService {
         Order order = new Order();
         order.setEmail(email);
         order.setOrderDate(LocalDate.now());
-        order.setTotalAmount(cart.getTotalPrice());
+        order.setTotalAmount(cart.computeTotalPrice());
         order.setOrderStatus("Order Accepted!");
         order.setAddress(address);
 
         Payment payment = new Payment(paymentMethod, pgPaymentId, pgStatus, pgResponseMessage, pgName);
         payment.setOrder(order);
-        Payment savedPayment = paymentRepository.save(payment);
-        order.setPayment(savedPayment);
+        // Link both sides before saving, otherwise the cascaded order insert is followed by an update
+        order.setPayment(payment);
+        paymentRepository.save(payment);
 
         Order savedOrder = orderRepository.save(order);
 
@@ -88,24 +110,33 @@ public class OrderServiceImpl implements OrderService {
 
         List<OrderItem> savedOrderItems = orderItemRepository.saveAll(orderItems);
 
-        // Update product stock
-        cart.getCartItems().forEach(item -> {
-            int orderedQuantity = item.getQuantity();
-            Product product = item.getProduct();
-            product.setQuantity(product.getQuantity() - orderedQuantity);
-            productRepository.save(product);
+        // Convert the stock held for the cart into a sale
+        inventoryReservationService.commit(cart);
 
-            // Clear item the cart
-            cartService.deleteProductFromCart(cart.getCartId(), item.getProduct().getProductId());
-        });
+        // Update product stock for all lines at once (the whole order is rolled back if any line lacks stock)
+        int updatedProducts = productRepository.decrementStockForCart(cart.getCartId());
+        if (updatedProducts != cartItems.size()) {
+            throw new APIException("Some products in the cart are no longer available in the requested quantity");
+        }
 
-        // Send back the order summary
-        OrderDTO orderDTO = modelMapper.map(savedOrder, OrderDTO.class);
-        orderItems.forEach(item ->
-                orderDTO.getOrderItems().add(modelMapper.map(item, OrderItemDTO.class))
-        );
-        orderDTO.setAddressId(addressId);
+        // Clear the cart with a single delete (the cart items are not removed from the loaded collection,
+        // otherwise orphan removal would try to delete them again one by one)
+        cartItemRepository.deleteAllByCartId(cart.getCartId());
+        cart.setTotalPrice(0);
+
+        // Catalog pages and the search index show the stock, refresh the ordered products once the order is committed
+        Set<Long> categoryIds = cartItems.stream()
+                .map(item -> item.getProduct().getCategory())
+                .filter(Objects::nonNull)
+                .map(Category::getCategoryId)
+                .collect(Collectors.toSet());
+        Set<Long> productIds = cartItems.stream()
+                .map(item -> item.getProduct().getProductId())
+                .collect(Collectors.toSet());
+        eventPublisher.publishEvent(new ProductChangedEvent(categoryIds, productIds));
 
-        return orderDTO;
+        // Send back the order summary
+        savedOrder.setOrderItems(savedOrderItems);
+        return orderMapper.toOrderDTO(savedOrder);
     }
 }
@@ -1,22 +1,40 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PaginationService {
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
     public Pageable getPageable(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Sort sortByAndOrder = Sort.by(
+        return PageRequest.of(pageNumber, pageSize, getSort(sortBy, sortOrder));
+    }
+
+    public Sort getSort(String sortBy, String sortOrder) {
+        return Sort.by(
                 sortOrder.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC,
                 sortBy
         );
-        return PageRequest.of(pageNumber, pageSize, sortByAndOrder);
     }
 
     public <T> PaginationResponse<T> getPaginationResponse(List<T> content, Page<?> pageData) {
@@ -29,4 +47,69 @@ public class PaginationService {
                 pageData.isLast()
         );
     }
+
+    // Decode an "after" cursor into a keyset position (blank cursor means the first page).
+    // The cursor must hold the sort property and the id that the seek query appends to the sort, and nothing else.
+    // Key values are converted back to the entity property types so they bind correctly in the seek query.
+    public ScrollPosition getScrollPosition(String after, String sortBy, Class<?> entityClass, String idProperty) {
+        if (after == null || after.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, String> cursor = decodeCursor(after);
+        if (!cursor.keySet().equals(new HashSet<>(List.of(sortBy, idProperty)))) {
+            throw new APIException("Pagination cursor does not match sort property " + sortBy);
+        }
+        if (cursor.get(idProperty) == null) {
+            throw new APIException("Invalid pagination cursor");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        cursor.forEach((property, value) -> {
+            Class<?> propertyType = BeanUtils.findPropertyType(property, entityClass);
+            if (propertyType == Object.class) {
+                throw new APIException("Invalid pagination cursor");
+            }
+            try {
+                keys.put(property, value == null ? null : CONVERSION_SERVICE.convert(value, propertyType));
+            } catch (ConversionException e) {
+                throw new APIException("Invalid pagination cursor");
+            }
+        });
+
+        return ScrollPosition.forward(keys);
+    }
+
+    public <T> CursorPaginationResponse<T> getCursorPaginationResponse(List<T> content, Window<?> window, Integer pageSize) {
+        String nextCursor = window.hasNext()
+                ? encodeCursor((KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+
+        return new CursorPaginationResponse<T>(
+                content,
+                pageSize,
+                nextCursor,
+                !window.hasNext()
+        );
+    }
+
+    private String encodeCursor(KeysetScrollPosition position) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        position.getKeys().forEach((property, value) -> keys.put(property, value == null ? null : value.toString()));
+        try {
+            byte[] json = CURSOR_MAPPER.writeValueAsBytes(keys);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode pagination cursor", e);
+        }
+    }
+
+    private Map<String, String> decodeCursor(String cursor) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor.getBytes(StandardCharsets.US_ASCII));
+            return CURSOR_MAPPER.readValue(json, new TypeReference<>() {});
+        } catch (IllegalArgumentException | IOException e) {
+            throw new APIException("Invalid pagination cursor");
+        }
+    }
 }
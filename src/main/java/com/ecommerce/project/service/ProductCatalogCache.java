@@ -0,0 +1,61 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.payload.PaginationResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.util.BoundedTtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Read-through cache of rendered catalog pages (all products and products per category).
+// Pages are dropped when a product of their category changes, and a page loaded while a change was being committed
+// is not kept.
+// Cached responses are shared between requests and must be treated as read-only.
+@Component
+public class ProductCatalogCache {
+    private final BoundedTtlCache<PageKey, PaginationResponse<ProductDTO>> cache;
+    // Counts the product changes, a load that overlaps one may have read the state before it
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCatalogCache(
+            @Value("${spring.app.catalogCacheMaxSize}") int maxSize,
+            @Value("${spring.app.catalogCacheTtlMs}") long ttlMs
+    ) {
+        this.cache = new BoundedTtlCache<>("catalog", maxSize, ttlMs);
+    }
+
+    public PaginationResponse<ProductDTO> getPage(PageKey key, Supplier<PaginationResponse<ProductDTO>> loader) {
+        PaginationResponse<ProductDTO> page = cache.get(key);
+        if (page != null) {
+            return page;
+        }
+
+        long loadedAt = generation.get();
+        page = loader.get();
+        cache.put(key, page);
+        // Checked after the put: a change counted later also runs its invalidation after the put
+        if (generation.get() != loadedAt) {
+            cache.invalidate(key);
+        }
+        return page;
+    }
+
+    // Runs once the change is committed, so that a miss never reloads the state before it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateIf(key -> key.categoryId() == null || event.categoryIds().contains(key.categoryId()));
+    }
+
+    public CacheStatsDTO stats() {
+        return cache.stats();
+    }
+
+    // A null category stands for the listing of all products
+    public record PageKey(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.ecommerce.project.service;
+
+import java.util.Set;
+
+// Published whenever products are added, changed or removed, with the products and the categories they belong to
+public record ProductChangedEvent(Set<Long> categoryIds, Set<Long> productIds) {
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.payload.CacheStatsDTO;
+import com.ecommerce.project.util.BoundedTtlCache;
+import com.ecommerce.project.util.ImageTypes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Product images and their variants by file name, with their strong ETag (the SHA-256 of the content).
+// An image file is never rewritten, every upload gets a new name, so nothing cached here goes stale: the TTL only
+// lets cold images fall out. Images up to spring.app.imageCacheMaxEntryBytes are held in memory, bounded by their
+// total size. Larger ones are read from disk on every request and only their ETag is kept.
+@Component
+public class ProductImageCache {
+    private static final int MAX_LARGE_IMAGE_ETAGS = 10000;
+
+    private final Path directory;
+    private final int maxEntryBytes;
+    private final BoundedTtlCache<String, Image> images;
+    private final BoundedTtlCache<String, String> largeImageETags;
+
+    public ProductImageCache(
+            @Value("${project.image_directory}") String imageDirectory,
+            @Value("${spring.app.imageCacheMaxBytes}") int maxBytes,
+            @Value("${spring.app.imageCacheMaxEntryBytes}") int maxEntryBytes,
+            @Value("${spring.app.imageCacheTtlMs}") long ttlMs
+    ) {
+        this.directory = Paths.get(imageDirectory).toAbsolutePath().normalize();
+        this.maxEntryBytes = maxEntryBytes;
+        this.images = new BoundedTtlCache<>("images", maxBytes, ttlMs, image -> (int) image.contentLength());
+        this.largeImageETags = new BoundedTtlCache<>("largeImageETags", MAX_LARGE_IMAGE_ETAGS, ttlMs);
+    }
+
+    public Image get(String fileName) throws IOException {
+        Image image = find(fileName, directory, fileName);
+        if (image == null)
+            throw new ResourceNotFoundException("Image", "fileName", fileName);
+        return image;
+    }
+
+    // Null while the variant has not been made
+    public Image getVariant(ImageVariants.Variant variant, String fileName) throws IOException {
+        return find(variant.getPath() + "/" + fileName, directory.resolve(variant.getPath()), fileName);
+    }
+
+    private Image find(String key, Path imageDirectory, String fileName) throws IOException {
+        Image image = images.get(key);
+        if (image != null) {
+            return image;
+        }
+
+        // Only the allowed raster types, whatever else the directory may hold
+        MediaType contentType = ImageTypes.contentType(fileName);
+        Path file = resolve(imageDirectory, fileName);
+        if (contentType == null || file == null) {
+            return null;
+        }
+        long size = Files.size(file);
+        if (size <= maxEntryBytes) {
+            byte[] content = Files.readAllBytes(file);
+            image = new Image(new ByteArrayResource(content), eTag(content), contentType, content.length);
+            images.put(key, image);
+            return image;
+        }
+
+        String eTag = largeImageETags.get(key, name -> {
+            MessageDigest digest = sha256();
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+                inputStream.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        });
+        return new Image(new FileSystemResource(file), eTag, contentType, size);
+    }
+
+    public CacheStatsDTO stats() {
+        return images.stats();
+    }
+
+    // Only plain file names inside the directory: no paths, and no hidden files such as uploads in progress
+    private static Path resolve(Path imageDirectory, String fileName) {
+        Path file = imageDirectory.resolve(fileName).normalize();
+        if (fileName.startsWith(".") || !imageDirectory.equals(file.getParent()) || !Files.isRegularFile(file))
+            return null;
+        return file;
+    }
+
+    private static String eTag(byte[] content) {
+        return HexFormat.of().formatHex(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The content is shared between requests and must be treated as read-only
+    public record Image(Resource resource, String eTag, MediaType contentType, long contentLength) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.ImportResponse;
+import com.ecommerce.project.util.DataFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ImportResponse importProducts(DataFormat format, InputStream inputStream) throws IOException;
+}
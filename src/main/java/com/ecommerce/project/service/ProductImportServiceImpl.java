@@ -0,0 +1,211 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ImportErrorDTO;
+import com.ecommerce.project.payload.ImportResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.util.DataFormat;
+import com.ecommerce.project.util.ImportReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Bulk creation of products from a CSV or NDJSON body, with the columns productName, description, categoryId,
+// quantity, price and discount. The body is read in chunks: the rows of a chunk are parsed and validated in parallel,
+// checked against the names taken so far, then written in one transaction and one JDBC batch.
+// A bad row is reported with its line and skipped, the rest of the file is still imported.
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategorySnapshot categorySnapshot;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public ImportResponse importProducts(DataFormat format, InputStream inputStream) throws IOException {
+        ImportResponse response = new ImportResponse();
+        // Names taken before the import, then the names of the rows accepted so far: the first of two rows wins
+        Set<String> productNames = new HashSet<>(productRepository.findAllProductNames());
+
+        try (ImportReader reader = new ImportReader(format, inputStream, objectMapper)) {
+            List<ImportReader.Record> chunk = new ArrayList<>(AppConstants.IMPORT_CHUNK_SIZE);
+            for (ImportReader.Record record = reader.next(); record != null; record = reader.next()) {
+                chunk.add(record);
+                if (chunk.size() == AppConstants.IMPORT_CHUNK_SIZE) {
+                    importChunk(reader, chunk, productNames, response);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(reader, chunk, productNames, response);
+            }
+        }
+        return response;
+    }
+
+    private void importChunk(ImportReader reader, List<ImportReader.Record> chunk, Set<String> productNames, ImportResponse response) {
+        List<Row> rows = chunk.parallelStream()
+                .map(record -> toRow(reader, record))
+                .toList();
+
+        List<Row> accepted = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.error() != null) {
+                fail(response, row.line(), row.error());
+            } else if (!productNames.add(row.product().getProductName())) {
+                fail(response, row.line(), "Product with the name " + row.product().getProductName() + " already exists !");
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<Product> products;
+        try {
+            products = new TransactionTemplate(transactionManager).execute(status -> write(accepted));
+        } catch (DataAccessException | PersistenceException e) {
+            // The whole chunk is rolled back, its names are free again. The cause stays in the log, it may show the SQL.
+            logger.error("Import of {} rows from line {} failed", accepted.size(), accepted.get(0).line(), e);
+            for (Row row : accepted) {
+                productNames.remove(row.product().getProductName());
+                fail(response, row.line(), "Not saved: the rows of this chunk could not be written");
+            }
+            return;
+        }
+        response.setImported(response.getImported() + products.size());
+    }
+
+    private List<Product> write(List<Row> rows) {
+        // Every insert of the chunk goes in one batch, ids come from the pooled sequence without a round trip per row
+        entityManager.unwrap(Session.class).setJdbcBatchSize(AppConstants.IMPORT_CHUNK_SIZE);
+
+        List<Product> products = new ArrayList<>(rows.size());
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (Row row : rows) {
+            Product product = productMapper.toProduct(row.product());
+            product.setImage("default.png");
+            product.setCategory(entityManager.getReference(Category.class, row.categoryId()));
+            product.setSpecialPrice(ProductServiceImpl.calculateSpecialPrice(
+                    product.getPrice(),
+                    product.getDiscount()
+            ));
+            entityManager.persist(product);
+            products.add(product);
+            categoryIds.add(row.categoryId());
+        }
+        entityManager.flush();
+        products.forEach(product -> productIds.add(product.getProductId()));
+        eventPublisher.publishEvent(new ProductChangedEvent(categoryIds, productIds));
+        // The request keeps its persistence context open across chunks, drop the written products from it
+        entityManager.clear();
+        return products;
+    }
+
+    // Runs on the threads of the parallel stream: reads only the record, the category snapshot and the validator
+    private Row toRow(ImportReader reader, ImportReader.Record record) {
+        try {
+            Map<String, String> values = reader.parse(record);
+            ProductDTO productDTO = new ProductDTO();
+            productDTO.setProductName(values.get("productName"));
+            productDTO.setDescription(values.get("description"));
+            productDTO.setQuantity(parseNumber(values, "quantity", Integer::valueOf));
+            productDTO.setPrice(parseNumber(values, "price", Double::valueOf));
+            productDTO.setDiscount(values.containsKey("discount") ? parseNumber(values, "discount", Double::valueOf) : 0.0);
+            Long categoryId = parseNumber(values, "categoryId", Long::valueOf);
+
+            List<String> errors = validator.validate(productDTO).stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ProductImportServiceImpl::describe)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (productDTO.getQuantity() < 0)
+                errors.add("quantity must not be negative");
+            if (productDTO.getPrice() < 0)
+                errors.add("price must not be negative");
+            if (productDTO.getDiscount() < 0 || productDTO.getDiscount() > 100)
+                errors.add("discount must be between 0 and 100");
+            if (!categorySnapshot.existsById(categoryId))
+                errors.add("Category not found with categoryId: " + categoryId);
+
+            return new Row(record.line(), productDTO, categoryId, errors.isEmpty() ? null : String.join("; ", errors));
+        } catch (IllegalArgumentException e) {
+            return new Row(record.line(), null, null, e.getMessage());
+        }
+    }
+
+    private static <T> T parseNumber(Map<String, String> values, String column, Function<String, T> parser) {
+        String value = values.get(column);
+        if (value == null)
+            throw new IllegalArgumentException(column + " is required");
+        T number;
+        try {
+            number = parser.apply(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a valid number: " + value);
+        }
+        // Double.valueOf takes NaN and Infinity
+        if (number instanceof Double d && !Double.isFinite(d))
+            throw new IllegalArgumentException(column + " is not a valid number: " + value);
+        return number;
+    }
+
+    private static String describe(ConstraintViolation<ProductDTO> violation) {
+        return violation.getPropertyPath() + ": " + violation.getMessage();
+    }
+
+    private static void fail(ImportResponse response, int line, String message) {
+        response.setFailed(response.getFailed() + 1);
+        if (response.getErrors().size() < AppConstants.IMPORT_MAX_ERRORS) {
+            response.getErrors().add(new ImportErrorDTO(line, message));
+        }
+    }
+
+    // An error means the row is skipped
+    private record Row(int line, ProductDTO product, Long categoryId, String error) {
+    }
+}
@@ -0,0 +1,385 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.mapper.ProductMapper;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+// In-memory trigram index over product name and description.
+// Keyword search is served from here so that a leading-wildcard LIKE never reaches the products table.
+// Only the normalized text and the sort keys of a product are held, the products of the requested page are read
+// from the database.
+@Service
+public class ProductSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock rebuilding = new ReentrantLock();
+    // Guarded by the lock. A rebuild replaces the whole index at once.
+    private Index index = new Index();
+    // Guarded by the lock: the products changed since the rebuild in progress started, null when none runs
+    private Set<Long> changedDuringRebuild;
+    private volatile boolean ready = false;
+
+    // The products are scanned without the lock, then the new index is swapped in once the changes committed
+    // meanwhile have been applied to it
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuilding.lock();
+        try {
+            long startTime = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index built = new Index();
+            ScrollPosition position = ScrollPosition.keyset();
+            Window<Product> batch;
+            do {
+                batch = productRepository.findBy(position, Sort.by("productId"), Limit.of(REBUILD_BATCH_SIZE));
+                batch.forEach(product -> built.put(product.getProductId(), document(product)));
+                if (!batch.isEmpty()) {
+                    position = batch.positionAt(batch.size() - 1);
+                }
+            } while (batch.hasNext());
+            built.trim();
+
+            while (true) {
+                Set<Long> changed;
+                lock.writeLock().lock();
+                try {
+                    if (changedDuringRebuild.isEmpty()) {
+                        index = built;
+                        changedDuringRebuild = null;
+                        break;
+                    }
+                    changed = changedDuringRebuild;
+                    changedDuringRebuild = new HashSet<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                read(changed).forEach(built::put);
+            }
+
+            ready = true;
+            logger.info("Product search index built with {} products in {} ms", size(), System.currentTimeMillis() - startTime);
+        } finally {
+            rebuilding.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Runs once the change is committed. The products are read back, so a rolled back change never reaches the index
+    // and a product that is gone is removed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.productIds().isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(event.productIds());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Document> documents = read(event.productIds());
+        lock.writeLock().lock();
+        try {
+            documents.forEach(index::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A keyword shorter than a trigram would have to be checked against every product
+    public void checkKeyword(String keyword) {
+        if (normalize(keyword).length() < GRAM_SIZE) {
+            throw new APIException("Keyword must contain at least " + GRAM_SIZE + " characters");
+        }
+    }
+
+    public Page<ProductDTO> search(String keyword, Pageable pageable) {
+        checkKeyword(keyword);
+        String query = normalize(keyword);
+        Comparator<ScoredDocument> order = Comparator.comparingInt(ScoredDocument::score).reversed()
+                .thenComparing(tieBreaker(pageable.getSort()));
+
+        List<ScoredDocument> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long productId : index.candidates(grams(query))) {
+                Document document = index.documents.get(productId);
+                int score = score(document, query);
+                if (score > 0) {
+                    hits.add(new ScoredDocument(productId, document, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(order);
+        int fromIndex = (int) Math.min(pageable.getOffset(), hits.size());
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), hits.size());
+        List<Long> productIds = hits.subList(fromIndex, toIndex).stream()
+                .map(ScoredDocument::productId)
+                .toList();
+
+        // A product deleted since the search is left out of the page
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<ProductDTO> content = productIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toProductDTO)
+                .toList();
+
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+
+    // The current documents of the products, null for a product that no longer exists
+    private Map<Long, Document> read(Collection<Long> productIds) {
+        Map<Long, Document> documents = new HashMap<>();
+        productIds.forEach(productId -> documents.put(productId, null));
+        productRepository.findAllById(productIds)
+                .forEach(product -> documents.put(product.getProductId(), document(product)));
+        return documents;
+    }
+
+    private static Document document(Product product) {
+        return new Document(
+                normalize(product.getProductName()),
+                normalize(product.getDescription()),
+                product.getQuantity(),
+                product.getPrice(),
+                product.getDiscount(),
+                product.getSpecialPrice()
+        );
+    }
+
+    // Name hits rank above description hits, whole-word and prefix name hits rank highest
+    private static int score(Document document, String query) {
+        int score = 0;
+        if (document.name().contains(query)) {
+            score += 4;
+            if (document.name().startsWith(query)) {
+                score += 2;
+            }
+            if (Arrays.asList(document.name().split(" ")).contains(query)) {
+                score += 2;
+            }
+        }
+        if (document.description().contains(query)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    private static Comparator<ScoredDocument> tieBreaker(Sort sort) {
+        Comparator<ScoredDocument> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<ScoredDocument> next = switch (order.getProperty()) {
+                case "productId" -> Comparator.comparingLong(ScoredDocument::productId);
+                case "productName" -> Comparator.comparing(hit -> hit.document().name());
+                case "quantity" -> Comparator.comparing(hit -> hit.document().quantity(), Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "price" -> Comparator.comparingDouble(hit -> hit.document().price());
+                case "discount" -> Comparator.comparingDouble(hit -> hit.document().discount());
+                case "specialPrice" -> Comparator.comparingDouble(hit -> hit.document().specialPrice());
+                default -> throw new APIException("Products cannot be sorted by " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+
+        return comparator != null ? comparator : Comparator.comparingLong(ScoredDocument::productId);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    // Not thread-safe, the live index is guarded by the lock and a rebuilt one is only used by the rebuild
+    private static class Index {
+        final Map<Long, Document> documents = new HashMap<>();
+        final Map<String, Postings> nameGrams = new HashMap<>();
+        final Map<String, Postings> descriptionGrams = new HashMap<>();
+
+        // A null document removes the product. Only the grams that differ are touched, a stock change touches none.
+        void put(Long productId, Document document) {
+            Document previous = document != null ? documents.put(productId, document) : documents.remove(productId);
+            relink(nameGrams, productId,
+                    previous != null ? previous.name() : "",
+                    document != null ? document.name() : "");
+            relink(descriptionGrams, productId,
+                    previous != null ? previous.description() : "",
+                    document != null ? document.description() : "");
+        }
+
+        long[] candidates(Set<String> queryGrams) {
+            return LongStream.concat(
+                    Arrays.stream(intersect(nameGrams, queryGrams)),
+                    Arrays.stream(intersect(descriptionGrams, queryGrams))
+            ).sorted().distinct().toArray();
+        }
+
+        void trim() {
+            nameGrams.values().forEach(Postings::trim);
+            descriptionGrams.values().forEach(Postings::trim);
+        }
+
+        private static void relink(Map<String, Postings> postings, long productId, String previous, String current) {
+            if (previous.equals(current)) {
+                return;
+            }
+            Set<String> previousGrams = grams(previous);
+            Set<String> currentGrams = grams(current);
+            for (String gram : previousGrams) {
+                if (!currentGrams.contains(gram)) {
+                    Postings posting = postings.get(gram);
+                    if (posting != null && posting.remove(productId) && posting.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            for (String gram : currentGrams) {
+                if (!previousGrams.contains(gram)) {
+                    postings.computeIfAbsent(gram, key -> new Postings()).add(productId);
+                }
+            }
+        }
+
+        private static long[] intersect(Map<String, Postings> postings, Set<String> queryGrams) {
+            List<Postings> lists = new ArrayList<>(queryGrams.size());
+            for (String gram : queryGrams) {
+                Postings posting = postings.get(gram);
+                if (posting == null) {
+                    return new long[0];
+                }
+                lists.add(posting);
+            }
+
+            // Walk the rarest gram and probe the others
+            lists.sort(Comparator.comparingInt(posting -> posting.size));
+            Postings rarest = lists.get(0);
+            long[] result = new long[rarest.size];
+            int count = 0;
+            next:
+            for (int i = 0; i < rarest.size; i++) {
+                long productId = rarest.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(productId)) {
+                        continue next;
+                    }
+                }
+                result[count++] = productId;
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    // Sorted product ids of one gram
+    private static class Postings {
+        long[] ids = new long[2];
+        int size;
+
+        void add(long productId) {
+            // The rebuild adds the products in id order, it only ever appends
+            int at = size > 0 && ids[size - 1] >= productId ? Arrays.binarySearch(ids, 0, size, productId) : -size - 1;
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(2, size * 2));
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = productId;
+            size++;
+        }
+
+        boolean remove(long productId) {
+            int at = Arrays.binarySearch(ids, 0, size, productId);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long productId) {
+            return Arrays.binarySearch(ids, 0, size, productId) >= 0;
+        }
+
+        void trim() {
+            if (ids.length != size) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+
+    private record Document(String name, String description, Integer quantity, double price, double discount, double specialPrice) {
+    }
+
+    private record ScoredDocument(long productId, Document document, int score) {
+    }
+}
@@ -1,17 +1,22 @@
 package com.ecommerce.project.service;
 
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
 import com.ecommerce.project.payload.ProductDTO;
+import org.springframework.http.MediaType;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 public interface ProductService {
     PaginationResponse<ProductDTO> getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    CursorPaginationResponse<ProductDTO> getAllProducts(String after, Integer pageSize, String sortBy, String sortOrder);
     PaginationResponse<ProductDTO> searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
     PaginationResponse<ProductDTO> searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
     ProductDTO addProduct(Long categoryId, ProductDTO product);
     ProductDTO updateProduct(Long productId, ProductDTO product);
     ProductDTO deleteProduct(Long productId);
     ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException;
+    ProductDTO updateProductImage(Long productId, InputStream image, MediaType contentType) throws IOException;
 }
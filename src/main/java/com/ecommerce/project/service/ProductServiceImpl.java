@@ -2,40 +2,48 @@ package com.ecommerce.project.service;
 
 import com.ecommerce.project.exceptions.APIException;
 import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.mapper.ProductMapper;
 import com.ecommerce.project.model.Cart;
 import com.ecommerce.project.model.Category;
 import com.ecommerce.project.model.Product;
-import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CursorPaginationResponse;
 import com.ecommerce.project.payload.PaginationResponse;
 import com.ecommerce.project.payload.ProductDTO;
 import com.ecommerce.project.repositories.CartRepository;
 import com.ecommerce.project.repositories.CategoryRepository;
 import com.ecommerce.project.repositories.ProductRepository;
-import org.modelmapper.ModelMapper;
+import com.ecommerce.project.util.ImageTypes;
+import com.ecommerce.project.util.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.*;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class ProductServiceImpl implements ProductService {
-
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategorySnapshot categorySnapshot;
+
     @Autowired
     private CartRepository cartRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
 
     @Autowired
     private CartService cartService;
@@ -49,8 +57,30 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private PaginationService paginationService;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ProductCatalogCache productCatalogCache;
+
+    @Autowired
+    private ImageVariants imageVariants;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public PaginationResponse<ProductDTO> getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        return productCatalogCache.getPage(
+                new ProductCatalogCache.PageKey(null, pageNumber, pageSize, sortBy, sortOrder),
+                () -> loadAllProducts(pageNumber, pageSize, sortBy, sortOrder)
+        );
+    }
+
+    private PaginationResponse<ProductDTO> loadAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Pageable pageDetails = paginationService.getPageable(pageNumber, pageSize, sortBy, sortOrder);
         Page<Product> productPage = productRepository.findAll(pageDetails);
         List<Product> products = productPage.getContent();
@@ -58,15 +88,40 @@ public class ProductServiceImpl implements ProductService {
             throw new APIException("No products created.");
 
         List<ProductDTO> productDTOs = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(productMapper::toProductDTO)
                 .toList();
         return paginationService.getPaginationResponse(productDTOs, productPage);
     }
 
+    @Override
+    public CursorPaginationResponse<ProductDTO> getAllProducts(String after, Integer pageSize, String sortBy, String sortOrder) {
+        ScrollPosition position = paginationService.getScrollPosition(after, sortBy, Product.class, "productId");
+        Window<Product> productWindow = productRepository.findBy(
+                position,
+                paginationService.getSort(sortBy, sortOrder),
+                Limit.of(pageSize)
+        );
+        if (productWindow.isEmpty() && position.isInitial())
+            throw new APIException("No products created.");
+
+        List<ProductDTO> productDTOs = productWindow.stream()
+                .map(productMapper::toProductDTO)
+                .toList();
+        return paginationService.getCursorPaginationResponse(productDTOs, productWindow, pageSize);
+    }
+
     @Override
     public PaginationResponse<ProductDTO> searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
+        return productCatalogCache.getPage(
+                new ProductCatalogCache.PageKey(categoryId, pageNumber, pageSize, sortBy, sortOrder),
+                () -> loadProductsByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder)
+        );
+    }
+
+    private PaginationResponse<ProductDTO> loadProductsByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+        if (!categorySnapshot.existsById(categoryId))
+            throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+        Category category = categoryRepository.getReferenceById(categoryId);
 
         Pageable pageDetails = paginationService.getPageable(pageNumber, pageSize, sortBy, sortOrder);
         Page<Product> productPage = productRepository.findByCategoryOrderByPriceAsc(category, pageDetails);
@@ -75,7 +130,7 @@ public class ProductServiceImpl implements ProductService {
             throw new APIException("No products created for this category.");
 
         List<ProductDTO> productDTOs = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
+                .map(productMapper::toProductDTO)
                 .toList();
         return paginationService.getPaginationResponse(productDTOs, productPage);
     }
@@ -83,25 +138,28 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public PaginationResponse<ProductDTO> searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
         Pageable pageDetails = paginationService.getPageable(pageNumber, pageSize, sortBy, sortOrder);
-        Page<Product> productPage = productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%', pageDetails);
-        List<Product> products = productPage.getContent();
-        if (products.isEmpty())
+        productSearchIndex.checkKeyword(keyword);
+
+        // Fall back to the database only while the search index is still being built at startup
+        Page<ProductDTO> productPage = productSearchIndex.isReady()
+                ? productSearchIndex.search(keyword, pageDetails)
+                : productRepository.findByProductNameLikeIgnoreCase('%' + keyword + '%', pageDetails)
+                        .map(productMapper::toProductDTO);
+        if (productPage.isEmpty())
             throw new APIException("No products created for this keyword.");
 
-        List<ProductDTO> productDTOs = products.stream()
-                .map(product -> modelMapper.map(product, ProductDTO.class))
-                .toList();
-        return paginationService.getPaginationResponse(productDTOs, productPage);
+        return paginationService.getPaginationResponse(productPage.getContent(), productPage);
     }
 
     @Override
     public ProductDTO addProduct(Long categoryId, ProductDTO productDTO) {
-        Category category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "categoryId", categoryId));
+        if (!categorySnapshot.existsById(categoryId))
+            throw new ResourceNotFoundException("Category", "categoryId", categoryId);
+        Category category = categoryRepository.getReferenceById(categoryId);
         if (productRepository.existsByProductName(productDTO.getProductName()))
             throw new APIException("Product with the name " + productDTO.getProductName() + " already exists !");
 
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = productMapper.toProduct(productDTO);
         product.setImage("default.png");
         product.setCategory(category);
         product.setSpecialPrice(calculateSpecialPrice(
@@ -109,8 +167,9 @@ public class ProductServiceImpl implements ProductService {
                 product.getDiscount()
         ));
         Product savedProduct = productRepository.save(product);
+        publishProductChanged(savedProduct);
 
-        return modelMapper.map(savedProduct, ProductDTO.class);
+        return productMapper.toProductDTO(savedProduct);
     }
 
     @Override
@@ -120,6 +179,8 @@ public class ProductServiceImpl implements ProductService {
         Product productFromDb = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
+        int stockDelta = Objects.requireNonNullElse(productDTO.getQuantity(), 0) - Objects.requireNonNullElse(productFromDb.getQuantity(), 0);
+
         // Manually update some fields (saving product entity from request might cause some fields or relationships to be removed)
         productFromDb.setProductName(productDTO.getProductName());
         productFromDb.setDescription(productDTO.getDescription());
@@ -132,24 +193,13 @@ public class ProductServiceImpl implements ProductService {
         ));
 
         Product savedProduct = productRepository.save(productFromDb);
+        inventoryReservationService.adjustStock(productId, stockDelta);
+        publishProductChanged(savedProduct);
 
         // Update price on every carts
-        List<Cart> carts = cartRepository.findCartsByProductId(productId);
-        List<CartDTO> cartDTOs = carts.stream().map(cart -> {
-           CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
-           List<ProductDTO> productDTOs = cart.getCartItems().stream().map(ci -> {
-               return modelMapper.map(ci.getProduct(), ProductDTO.class);
-           }).toList();
-           cartDTO.setProducts(productDTOs);
-
-           return cartDTO;
-        }).toList();
-
-        cartDTOs.forEach(cartDTO -> {
-            cartService.updateProductInCart(cartDTO.getCartId(), productId);
-        });
+        cartService.repriceProduct(productId, Money.of(savedProduct.getSpecialPrice()));
 
-        return modelMapper.map(savedProduct, ProductDTO.class);
+        return productMapper.toProductDTO(savedProduct);
     }
 
     @Override
@@ -164,23 +214,53 @@ public class ProductServiceImpl implements ProductService {
         });
 
         productRepository.delete(productFromDb);
-        return modelMapper.map(productFromDb, ProductDTO.class);
+        inventoryReservationService.evict(productId);
+        publishProductChanged(productFromDb);
+        return productMapper.toProductDTO(productFromDb);
     }
 
+    // The type of the part decides the extension, never the file name sent by the client
     @Override
     public ProductDTO updateProductImage(Long productId, MultipartFile image) throws IOException {
+        try (InputStream inputStream = image.getInputStream()) {
+            return uploadImage(productId, inputStream, ImageTypes.extension(image.getContentType()), image.getContentType());
+        }
+    }
+
+    @Override
+    public ProductDTO updateProductImage(Long productId, InputStream image, MediaType contentType) throws IOException {
+        return uploadImage(productId, image, ImageTypes.extension(contentType), contentType.toString());
+    }
+
+    // The file is durable under its name once the upload returns, only the product row is left to update
+    private ProductDTO uploadImage(Long productId, InputStream image, String fileExt, String contentType) throws IOException {
+        if (fileExt == null)
+            throw new APIException("Image type " + contentType + " is not supported");
         Product productFromDb = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "productId", productId));
 
-        String fileName = fileService.uploadFile(imageDirectory, image);
+        String fileName = fileService.uploadFile(imageDirectory, image, fileExt);
+        return replaceImage(productFromDb, fileName);
+    }
 
+    // The variants are made in the background, the product points at the original until then
+    private ProductDTO replaceImage(Product productFromDb, String fileName) {
         productFromDb.setImage(fileName);
         Product updatedProduct = productRepository.save(productFromDb);
+        imageVariants.generate(fileName);
+        publishProductChanged(updatedProduct);
+
+        return productMapper.toProductDTO(updatedProduct);
+    }
 
-        return modelMapper.map(updatedProduct, ProductDTO.class);
+    // The search index and the catalog pages follow once the change is committed
+    private void publishProductChanged(Product product) {
+        Set<Long> categoryIds = product.getCategory() != null ? Set.of(product.getCategory().getCategoryId()) : Set.of();
+        eventPublisher.publishEvent(new ProductChangedEvent(categoryIds, Set.of(product.getProductId())));
     }
 
-    private double calculateSpecialPrice(double price, double discount) {
-        return (1 - (discount * 0.01)) * price;
+    // Rounded to the minor unit, so that cart and order amounts derived from it are exact
+    static double calculateSpecialPrice(double price, double discount) {
+        return Money.toDouble(Money.discounted(Money.of(price), discount));
     }
 }
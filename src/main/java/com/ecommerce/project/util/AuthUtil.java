@@ -1,38 +1,38 @@
 package com.ecommerce.project.util;
 
+import com.ecommerce.project.exceptions.UnauthorizedException;
 import com.ecommerce.project.model.User;
-import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.services.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
 
 @Component
 public class AuthUtil {
 
     @Autowired
-    UserRepository userRepository;
+    RequestUserContext requestUserContext;
 
+    // Email and id come from the principal built by AuthTokenFilter, no query needed
     public String loggedInEmail() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + authentication.getName()));
-
-        return user.getEmail();
+        return loggedInPrincipal().getEmail();
     }
 
     public Long loggedInUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User user = userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + authentication.getName()));
-
-        return user.getUserId();
+        return loggedInPrincipal().getId();
     }
 
     public User loggedInUser() {
+        return requestUserContext.getUser(loggedInUserId());
+    }
+
+    private UserDetailsImpl loggedInPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + authentication.getName()));
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl principal)) {
+            throw new UnauthorizedException();
+        }
+
+        return principal;
     }
 }
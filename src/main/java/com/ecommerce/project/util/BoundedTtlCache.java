@@ -0,0 +1,168 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.payload.CacheStatsDTO;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+// Size-bounded LRU cache whose entries also expire after a time-to-live. The size is the number of entries,
+// or the sum of their weights when the cache is built with a weigher.
+// Loaders run outside the lock, so two threads missing on the same key may both load it.
+// A ReentrantLock rather than a monitor, so that a virtual thread waiting for it does not pin its carrier thread.
+public class BoundedTtlCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ToIntFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long weight;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, value -> 1);
+    }
+
+    public BoundedTtlCache(String name, int maxSize, long ttlMillis, ToIntFunction<V> weigher) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        // Access order makes the eldest entry the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public V get(K key) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                hits.increment();
+                return entry.value();
+            }
+            if (entry != null) {
+                remove(key);
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        return null;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    // The entry never outlives the cache TTL, even if the caller allows a later expiry
+    public void put(K key, V value, long expiresAt) {
+        long bound = Math.min(expiresAt, System.currentTimeMillis() + ttlMillis);
+        Entry<V> entry = new Entry<>(value, bound, weigher.applyAsInt(value));
+        lock.lock();
+        try {
+            // An entry heavier than the whole cache would only push every other one out
+            if (entry.weight() > maxSize) {
+                remove(key);
+                return;
+            }
+            Entry<V> previous = entries.put(key, entry);
+            weight += entry.weight() - (previous != null ? previous.weight() : 0);
+            Iterator<Entry<V>> eldest = entries.values().iterator();
+            while (weight > maxSize && eldest.hasNext()) {
+                weight -= eldest.next().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateIf(Predicate<K> predicate) {
+        lock.lock();
+        try {
+            entries.entrySet().removeIf(entry -> {
+                if (predicate.test(entry.getKey())) {
+                    weight -= entry.getValue().weight();
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return (int) weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requestCount = hitCount + missCount;
+        return new CacheStatsDTO(
+                name,
+                size(),
+                maxSize,
+                hitCount,
+                missCount,
+                evictions.sum(),
+                requestCount == 0 ? 0.0 : (double) hitCount / requestCount
+        );
+    }
+
+    // Called with the lock held
+    private void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt, int weight) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecommerce.project.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+// Writes export rows straight to the response as they come, either as NDJSON (one JSON object per line)
+// or as CSV with a header line. Only the buffer of the writer is held in memory.
+public class ExportWriter implements Closeable {
+    private final DataFormat format;
+    private final String[] columns;
+    private final Writer writer;
+    private final JsonGenerator json;
+
+    public ExportWriter(DataFormat format, OutputStream outputStream, JsonFactory jsonFactory, String... columns) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        if (format == DataFormat.NDJSON) {
+            json = jsonFactory.createGenerator(writer);
+            json.setRootValueSeparator(null);
+        } else {
+            json = null;
+            for (int i = 0; i < columns.length; i++) {
+                writeCsvValue(i, columns[i]);
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    // Values are given in the order of the columns
+    public void row(Object... values) throws IOException {
+        if (format == DataFormat.NDJSON) {
+            json.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                json.writeFieldName(columns[i]);
+                json.writeObject(values[i]);
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } else {
+            for (int i = 0; i < columns.length; i++) {
+                writeCsvValue(i, values[i]);
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (json != null) {
+            json.close();
+        }
+        writer.close();
+    }
+
+    private void writeCsvValue(int index, Object value) throws IOException {
+        if (index > 0) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
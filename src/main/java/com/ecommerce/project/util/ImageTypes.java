@@ -0,0 +1,56 @@
+package com.ecommerce.project.util;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+import java.util.Map;
+
+// The raster image types a product image may have. Uploads of any other type are rejected and only files with one of
+// these extensions are served, so that nothing uploaded can be rendered by a browser as a document (HTML, SVG).
+public final class ImageTypes {
+    private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+
+    // The extension given to an upload, by its content type
+    private static final Map<MediaType, String> EXTENSIONS = Map.of(
+            MediaType.IMAGE_JPEG, ".jpg",
+            MediaType.IMAGE_PNG, ".png",
+            MediaType.IMAGE_GIF, ".gif",
+            IMAGE_WEBP, ".webp"
+    );
+
+    // The content type a file is served with, by its extension
+    private static final Map<String, MediaType> CONTENT_TYPES = Map.of(
+            "jpg", MediaType.IMAGE_JPEG,
+            "jpeg", MediaType.IMAGE_JPEG,
+            "png", MediaType.IMAGE_PNG,
+            "gif", MediaType.IMAGE_GIF,
+            "webp", IMAGE_WEBP
+    );
+
+    private ImageTypes() {
+    }
+
+    // Null when the type is not allowed
+    public static String extension(MediaType contentType) {
+        return EXTENSIONS.get(new MediaType(contentType.getType(), contentType.getSubtype()));
+    }
+
+    // Null when the type is missing, malformed or not allowed
+    public static String extension(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            return extension(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+    }
+
+    // Null when the extension is not allowed
+    public static MediaType contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? null : CONTENT_TYPES.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
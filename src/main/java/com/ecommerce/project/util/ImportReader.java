@@ -0,0 +1,135 @@
+package com.ecommerce.project.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Reads import rows from a request body as they come, either as NDJSON (one JSON object per line) or as CSV with
+// a header line. next() only splits the body into records; parse() turns a record into its values and can be
+// called from any thread, so that records are parsed in parallel.
+public class ImportReader implements Closeable {
+    private final DataFormat format;
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final List<String> columns;
+    private int lineNumber;
+
+    public ImportReader(DataFormat format, InputStream inputStream, ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+
+        Record header = format == DataFormat.CSV ? next() : null;
+        this.columns = header != null ? splitCsv(header.text()) : List.of();
+    }
+
+    // Returns null at the end of the body. Blank lines are skipped.
+    public Record next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        int firstLine = lineNumber;
+        if (format == DataFormat.CSV) {
+            // A quoted value may span several lines
+            StringBuilder text = new StringBuilder(line);
+            while (quotes(text) % 2 != 0 && (line = reader.readLine()) != null) {
+                lineNumber++;
+                text.append('\n').append(line);
+            }
+            return new Record(firstLine, text.toString());
+        }
+        return new Record(firstLine, line);
+    }
+
+    // Values by column name, a missing or empty value is null
+    public Map<String, String> parse(Record record) {
+        Map<String, String> values = new HashMap<>();
+        if (format == DataFormat.NDJSON) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(record.text());
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            node.fields().forEachRemaining(field -> {
+                if (!field.getValue().isNull()) {
+                    values.put(field.getKey(), field.getValue().asText());
+                }
+            });
+        } else {
+            List<String> row = splitCsv(record.text());
+            if (row.size() != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values but found " + row.size());
+            }
+            for (int i = 0; i < row.size(); i++) {
+                values.put(columns.get(i), row.get(i));
+            }
+        }
+        values.values().removeIf(String::isEmpty);
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static int quotes(CharSequence text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // RFC 4180: values with a comma, a quote or a line break are quoted, quotes inside are doubled
+    private static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    // One row of the body with the line it starts on
+    public record Record(int line, String text) {
+    }
+}
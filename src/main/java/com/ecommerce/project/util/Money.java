@@ -0,0 +1,27 @@
+package com.ecommerce.project.util;
+
+// Amounts in minor units (cents) held in a primitive long. Sums stay exact however many updates are applied,
+// and the arithmetic does not allocate, unlike boxed Double amounts. The API still speaks major units.
+public final class Money {
+    private static final int MINOR_UNITS = 100;
+
+    private Money() {
+    }
+
+    public static long of(double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    public static double toDouble(long amount) {
+        return (double) amount / MINOR_UNITS;
+    }
+
+    public static long times(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    // Rounded to the nearest minor unit
+    public static long discounted(long price, double discountPercent) {
+        return Math.round(price * (100 - discountPercent) / 100);
+    }
+}
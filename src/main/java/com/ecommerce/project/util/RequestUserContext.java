@@ -0,0 +1,28 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+// Holds the logged-in User entity for the current request, so it is loaded at most once and only when needed
+@Component
+@RequestScope
+public class RequestUserContext {
+
+    @Autowired
+    UserRepository userRepository;
+
+    private User user;
+
+    public User getUser(Long userId) {
+        if (user == null) {
+            user = userRepository.findById(userId)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+        }
+
+        return user;
+    }
+}
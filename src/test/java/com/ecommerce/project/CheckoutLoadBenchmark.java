@@ -0,0 +1,343 @@
+package com.ecommerce.project;
+
+import com.ecommerce.project.config.VirtualThreadPinningMonitor;
+import com.ecommerce.project.model.*;
+import com.ecommerce.project.payload.OrderRequestDTO;
+import com.ecommerce.project.repositories.*;
+import com.ecommerce.project.security.request.LoginRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives signin -> add to cart -> update quantity -> checkout over HTTP from one virtual thread per client
+// and reports throughput, latency percentiles and errors per endpoint.
+// Not part of the regular test run: mvn test -Dtest=CheckoutLoadBenchmark -Dload.clients=5000
+// Compare the request execution modes by running it once more with -Dspring.threads.virtual.enabled=true,
+// each mode writes its own result file. The run fails when more than load.maxErrorRate of the clients do not get
+// their order through, so that a fast run made of errors is not mistaken for a result.
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                // Own database, and row locks wait for the contended stock updates instead of failing after a second
+                "spring.datasource.url=jdbc:h2:mem:checkout-load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;LOCK_TIMEOUT=30000",
+                "server.tomcat.accept-count=10000",
+                "server.tomcat.max-connections=20000"
+        }
+)
+class CheckoutLoadBenchmark {
+    private static final String PASSWORD = "loadPassword";
+    private static final int INITIAL_STOCK = 1_000_000;
+    private static final int UNITS_PER_LINE = 2;
+    private static final List<String> ENDPOINTS = List.of("signin", "add to cart", "update quantity", "checkout");
+
+    @Value("${load.clients:2000}")
+    private int clients;
+
+    @Value("${load.products:20}")
+    private int productCount;
+
+    @Value("${load.linesPerOrder:2}")
+    private int linesPerOrder;
+
+    @Value("${load.maxErrorRate:0.01}")
+    private double maxErrorRate;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Value("${spring.app.jwtCookieName}")
+    private String jwtCookieName;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<VirtualThreadPinningMonitor> pinningMonitor;
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private HttpClient httpClient;
+
+    @Test
+    void reportCheckoutThroughputAndLatency() throws Exception {
+        // One transaction, so that the role stays attached while the users are persisted
+        List<Long> addressIds = new TransactionTemplate(transactionManager).execute(status -> seedUsers());
+        List<Long> productIds = seedProducts();
+        ENDPOINTS.forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+
+        AtomicInteger orders = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        long elapsed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            httpClient = client;
+            for (int i = 0; i < clients; i++) {
+                int clientIndex = i;
+                executor.submit(() -> {
+                    start.await();
+                    if (checkout(clientIndex, addressIds.get(clientIndex), productIds)) {
+                        orders.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+            elapsed = System.nanoTime() - startTime;
+        }
+
+        report(orders.get(), elapsed);
+
+        assertTrue(orders.get() > 0, "No order succeeded");
+        double errorRate = (double) (clients - orders.get()) / clients;
+        assertTrue(errorRate <= maxErrorRate,
+                String.format("%.2f%% of the clients failed, at most %.2f%% allowed: %s", errorRate * 100, maxErrorRate * 100, errors()));
+
+        // Every unit taken from stock must belong to an order the client saw succeed, and none may be lost
+        long stockLeft = productRepository.findAllById(productIds).stream()
+                .mapToLong(Product::getQuantity)
+                .sum();
+        assertEquals((long) orders.get() * linesPerOrder * UNITS_PER_LINE, (long) INITIAL_STOCK * productIds.size() - stockLeft);
+    }
+
+    private boolean checkout(int client, Long addressId, List<Long> productIds) {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setUsername("load" + client);
+        loginRequest.setPassword(PASSWORD);
+        HttpResponse<String> signin = send("signin", post("/api/auth/signin", loginRequest, null));
+        if (signin == null) {
+            return false;
+        }
+        String cookie = signin.headers().firstValue(HttpHeaders.SET_COOKIE)
+                .map(header -> HttpCookie.parse(header).get(0).getValue())
+                .map(token -> jwtCookieName + "=" + token)
+                .orElse(null);
+
+        // Consecutive products starting at a random offset, so clients overlap on the same stock rows
+        int offset = ThreadLocalRandom.current().nextInt(productIds.size());
+        for (int line = 0; line < linesPerOrder; line++) {
+            Long productId = productIds.get((offset + line) % productIds.size());
+            if (send("add to cart", post("/api/carts/products/" + productId + "/quantity/1", null, cookie)) == null
+                    || send("update quantity", put("/api/cart/products/" + productId + "/quantity/add", cookie)) == null) {
+                return false;
+            }
+        }
+
+        OrderRequestDTO orderRequest = new OrderRequestDTO(addressId, "card", "load", "pg-" + client, "success", "ok");
+        return send("checkout", post("/api/order/users/payments/card", orderRequest, cookie)) != null;
+    }
+
+    // Returns null for failed requests, which are counted per endpoint and status
+    private HttpResponse<String> send(String endpoint, HttpRequest request) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        long startTime = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(System.nanoTime() - startTime);
+            if (response.statusCode() != 200) {
+                endpointStats.error(String.valueOf(response.statusCode()));
+                return null;
+            }
+            return response;
+        } catch (Exception exception) {
+            endpointStats.error(exception.getClass().getSimpleName());
+            return null;
+        }
+    }
+
+    private HttpRequest post(String path, Object body, String cookie) {
+        try {
+            HttpRequest.BodyPublisher publisher = body != null
+                    ? HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))
+                    : HttpRequest.BodyPublishers.noBody();
+            return request(path, cookie).POST(publisher).build();
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private HttpRequest put(String path, String cookie) {
+        return request(path, cookie).PUT(HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private HttpRequest.Builder request(String path, String cookie) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofMinutes(5))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        if (cookie != null) {
+            builder.header(HttpHeaders.COOKIE, cookie);
+        }
+        return builder;
+    }
+
+    private void report(int orders, long elapsed) throws Exception {
+        double seconds = elapsed / 1_000_000_000.0;
+        String mode = virtualThreads ? "virtual" : "platform";
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threads", mode);
+        report.put("clients", clients);
+        report.put("orders", orders);
+        report.put("seconds", seconds);
+        report.put("ordersPerSecond", orders / seconds);
+        report.put("errorRate", (double) (clients - orders) / clients);
+
+        System.out.printf("%n%s threads, %d clients, %d orders in %.1f s, %.1f orders/s%n", mode, clients, orders, seconds, orders / seconds);
+        System.out.printf("%16s %10s %10s %10s %10s %10s %10s  %s%n",
+                "endpoint", "requests", "req/s", "p50 (ms)", "p99 (ms)", "p999 (ms)", "max (ms)", "errors");
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            EndpointStats endpointStats = stats.get(endpoint);
+            long[] latencies = endpointStats.sortedLatencies();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", latencies.length);
+            row.put("requestsPerSecond", latencies.length / seconds);
+            row.put("p50Ms", percentile(latencies, 0.50));
+            row.put("p99Ms", percentile(latencies, 0.99));
+            row.put("p999Ms", percentile(latencies, 0.999));
+            row.put("maxMs", percentile(latencies, 1.0));
+            row.put("errors", endpointStats.errors());
+            endpoints.put(endpoint, row);
+
+            System.out.printf("%16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f  %s%n",
+                    endpoint, latencies.length, latencies.length / seconds,
+                    row.get("p50Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"), endpointStats.errors());
+        }
+        report.put("endpoints", endpoints);
+
+        pinningMonitor.ifAvailable(monitor -> {
+            report.put("pinnedFrames", monitor.pinnedFrames());
+            System.out.printf("pinned virtual threads: %s%n", monitor.pinnedFrames());
+        });
+
+        // Kept next to the JMH results so that runs of two builds can be compared
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File("target/checkout-load-result-" + mode + ".json"), report);
+    }
+
+    private Map<String, Map<String, Integer>> errors() {
+        Map<String, Map<String, Integer>> errors = new LinkedHashMap<>();
+        ENDPOINTS.forEach(endpoint -> errors.put(endpoint, stats.get(endpoint).errors()));
+        return errors;
+    }
+
+    // Nearest-rank percentile in milliseconds
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(percentile * sortedLatencies.length);
+        return sortedLatencies[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+
+    private List<Long> seedUsers() {
+        Role userRole = roleRepository.findByRoleName(AppRole.ROLE_USER).orElseThrow();
+        // Hashing once is enough, every client signs in with the same password
+        String password = passwordEncoder.encode(PASSWORD);
+
+        List<User> users = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            User user = new User("load" + i, "load" + i + "@example.com", password);
+            user.setRoles(Set.of(userRole));
+            users.add(user);
+        }
+        users = userRepository.saveAll(users);
+
+        List<Address> addresses = new ArrayList<>(clients);
+        for (User user : users) {
+            Address address = new Address("Load street", "Load building", "Bangkok", "Bangkok", "Thailand", "10110");
+            address.setUser(user);
+            addresses.add(address);
+        }
+        return addressRepository.saveAll(addresses).stream()
+                .map(Address::getAddressId)
+                .toList();
+    }
+
+    private List<Long> seedProducts() {
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            Product product = new Product();
+            product.setProductName("Load product " + i);
+            product.setDescription("Load product description");
+            product.setQuantity(INITIAL_STOCK);
+            product.setPrice(100.0);
+            product.setDiscount(10.0);
+            product.setSpecialPrice(90.0);
+            products.add(product);
+        }
+        return productRepository.saveAll(products).stream()
+                .map(Product::getProductId)
+                .toList();
+    }
+
+    private static class EndpointStats {
+        private final List<Long> latencies = new ArrayList<>();
+        private final Map<String, Integer> errors = new TreeMap<>();
+
+        synchronized void record(long latency) {
+            latencies.add(latency);
+        }
+
+        synchronized void error(String reason) {
+            errors.merge(reason, 1, Integer::sum);
+        }
+
+        synchronized Map<String, Integer> errors() {
+            return new TreeMap<>(errors);
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
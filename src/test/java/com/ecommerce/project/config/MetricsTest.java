@@ -0,0 +1,55 @@
+package com.ecommerce.project.config;
+
+import com.ecommerce.project.exceptions.ResourceNotFoundException;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.service.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTest {
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithUserDetails("admin")
+    void serviceTimersAndPoolMetricsAreScrapable() throws Exception {
+        categoryService.createCategory(new CategoryDTO(null, "Metrics category"));
+        categoryService.getAllCategories(0, 10, "categoryId", "asc");
+        assertThrows(ResourceNotFoundException.class, () -> categoryService.deleteCategory(-1L));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "service_method_seconds_count{exception=\"none\",method=\"getAllCategories\",service=\"CategoryService\"}")))
+                .andExpect(content().string(containsString(
+                        "service_method_seconds_count{exception=\"ResourceNotFoundException\",method=\"deleteCategory\",service=\"CategoryService\"}")))
+                .andExpect(content().string(containsString("hibernate_query_executions_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"catalog\",result=\"hit\"}")));
+    }
+
+    @Test
+    @WithAnonymousUser
+    void metricsAreNotPublic() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.AddressDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("user1")
+class AddressControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void addressEndpointsDoNotGrowWithTheAddresses() throws Exception {
+        Long addressId = null;
+        for (int i = 0; i < 5; i++) {
+            String created = perform(mockMvc, post("/api/addresses")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(address("Budget street " + i))), 2)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            addressId = objectMapper.readValue(created, AddressDTO.class).getAddressId();
+        }
+
+        perform(mockMvc, get("/api/addresses"), 1)
+                .andExpect(status().isOk());
+        perform(mockMvc, get("/api/addresses/" + addressId), 1)
+                .andExpect(status().isOk());
+        perform(mockMvc, get("/api/user/addresses"), 1)
+                .andExpect(status().isOk());
+        perform(mockMvc, put("/api/addresses/" + addressId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(address("Budget avenue"))), 2)
+                .andExpect(status().isOk());
+        perform(mockMvc, delete("/api/addresses/" + addressId), 2)
+                .andExpect(status().isOk());
+    }
+
+    private static AddressDTO address(String street) {
+        return new AddressDTO(null, street, "Budget building", "Bangkok", "Bangkok", "Thailand", "10110");
+    }
+}
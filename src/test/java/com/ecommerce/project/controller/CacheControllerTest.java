@@ -0,0 +1,38 @@
+package com.ecommerce.project.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("admin")
+class CacheControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    // Statistics are read from memory only
+    @Test
+    void cacheStatsAreServedWithoutStatements() throws Exception {
+        perform(mockMvc, get("/api/admin/caches"), 0)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("principals"));
+    }
+
+    @Test
+    @WithUserDetails("user1")
+    void cacheStatsAreForAdminsOnly() throws Exception {
+        mockMvc.perform(get("/api/admin/caches"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("user1")
+class CartControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void createProducts() {
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Cart budget " + System.nanoTime())).getCategoryId();
+        for (int i = 0; i < 10; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setProductName("Cart budget product " + i + "-" + System.nanoTime());
+            product.setDescription("Statement budget product");
+            product.setQuantity(100);
+            product.setPrice(100.0);
+            productIds.add(productService.addProduct(categoryId, product).getProductId());
+        }
+    }
+
+    @Test
+    void cartEndpointsDoNotGrowWithTheCart() throws Exception {
+        // The first line also creates the cart, and any line may refill a pooled sequence
+        for (Long productId : productIds) {
+            perform(mockMvc, post("/api/carts/products/" + productId + "/quantity/1"), 12)
+                    .andExpect(status().isOk());
+        }
+
+        // The first click loads the cart and its holds into the cart store, the next ones stay in memory
+        Long productId = productIds.get(0);
+        perform(mockMvc, put("/api/cart/products/" + productId + "/quantity/add"), 2)
+                .andExpect(status().isOk());
+        perform(mockMvc, put("/api/cart/products/" + productId + "/quantity/delete"), 0)
+                .andExpect(status().isOk());
+
+        String cart = perform(mockMvc, get("/api/carts/users/cart"), 0)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long cartId = objectMapper.readValue(cart, CartDTO.class).getCartId();
+        // Writes the pending changes first
+        perform(mockMvc, get("/api/carts"), 6)
+                .andExpect(status().isOk());
+
+        for (Long id : productIds) {
+            perform(mockMvc, delete("/api/carts/" + cartId + "/product/" + id), 7)
+                    .andExpect(status().isOk());
+        }
+    }
+}
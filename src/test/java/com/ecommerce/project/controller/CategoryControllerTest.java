@@ -0,0 +1,51 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.CategoryDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("admin")
+class CategoryControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void categoryEndpointsStayWithinTheirStatementBudget() throws Exception {
+        String created = perform(mockMvc, post("/api/categories")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new CategoryDTO(null, "Budget category " + System.nanoTime()))), 1)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long categoryId = objectMapper.readValue(created, CategoryDTO.class).getCategoryId();
+
+        // Reads are served from the category snapshot
+        perform(mockMvc, get("/api/categories"), 0)
+                .andExpect(status().isOk());
+        perform(mockMvc, get("/api/categories").param("after", "").param("pageSize", "1"), 0)
+                .andExpect(status().isOk());
+
+        perform(mockMvc, put("/api/categories/" + categoryId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new CategoryDTO(null, "Budget renamed " + System.nanoTime()))), 2)
+                .andExpect(status().isOk());
+        perform(mockMvc, delete("/api/categories/" + categoryId), 2)
+                .andExpect(status().isOk());
+    }
+}
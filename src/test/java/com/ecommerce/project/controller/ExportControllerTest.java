@@ -0,0 +1,162 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Order;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.payload.OrderRequestDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.OrderRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("admin")
+class ExportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${spring.app.exportTimeoutMs}")
+    private long exportTimeoutMs;
+
+    @Test
+    void productsAndOrdersAreStreamedAsNdjsonAndCsv() throws Exception {
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Export " + System.nanoTime())).getCategoryId();
+        String productName = "Export product " + System.nanoTime();
+        ProductDTO product = new ProductDTO();
+        product.setProductName(productName);
+        product.setDescription("Comma, and \"quotes\"");
+        product.setQuantity(10);
+        product.setPrice(100.0);
+        product.setDiscount(10.0);
+        Long productId = productService.addProduct(categoryId, product).getProductId();
+
+        User admin = userRepository.findByUsername("admin").orElseThrow();
+        Address address = new Address("Export street", "Export building", "Bangkok", "Bangkok", "Thailand", "10110");
+        address.setUser(admin);
+        Long addressId = addressRepository.save(address).getAddressId();
+        mockMvc.perform(post("/api/carts/products/" + productId + "/quantity/2"))
+                .andExpect(status().isOk());
+        String placed = mockMvc.perform(post("/api/order/users/payments/card")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new OrderRequestDTO(addressId, "card", "export", "pg-export", "success", "ok"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long orderId = objectMapper.readValue(placed, OrderDTO.class).getOrderId();
+        Order empty = new Order();
+        empty.setEmail(admin.getEmail());
+        empty.setOrderDate(LocalDate.now());
+        empty.setOrderStatus("Cancelled");
+        Long emptyOrderId = orderRepository.save(empty).getOrderId();
+
+        List<JsonNode> products = ndjson(export("/api/admin/export/products", "ndjson", "application/x-ndjson"));
+        JsonNode exported = products.stream()
+                .filter(node -> node.get("productId").asLong() == productId)
+                .findFirst().orElseThrow();
+        assertEquals(productName, exported.get("productName").asText());
+        assertEquals(categoryId, exported.get("categoryId").asLong());
+        assertEquals(90.0, exported.get("specialPrice").asDouble());
+
+        String productsCsv = export("/api/admin/export/products", "csv", "text/csv");
+        assertTrue(productsCsv.startsWith("productId,productName,description,categoryId,"));
+        assertTrue(productsCsv.contains(productId + "," + productName + ",\"Comma, and \"\"quotes\"\"\"," + categoryId + ",8,"));
+
+        List<JsonNode> orderLines = ndjson(export("/api/admin/export/orders", "ndjson", "application/x-ndjson"));
+        JsonNode orderLine = orderLines.stream()
+                .filter(node -> node.get("orderId").asLong() == orderId)
+                .findFirst().orElseThrow();
+        assertEquals(productId, orderLine.get("productId").asLong());
+        assertEquals(2, orderLine.get("quantity").asInt());
+        assertEquals(180.0, orderLine.get("totalAmount").asDouble());
+        assertEquals(90.0, orderLine.get("orderedProductPrice").asDouble());
+        // An order without lines still gets its row
+        JsonNode emptyOrder = orderLines.stream()
+                .filter(node -> node.get("orderId").asLong() == emptyOrderId)
+                .findFirst().orElseThrow();
+        assertEquals("Cancelled", emptyOrder.get("orderStatus").asText());
+        assertTrue(emptyOrder.get("orderItemId").isNull());
+
+        String ordersCsv = export("/api/admin/export/orders", "csv", "text/csv");
+        assertTrue(ordersCsv.lines().anyMatch(line -> line.startsWith(orderId + ",")));
+        assertTrue(ordersCsv.lines().anyMatch(line -> line.startsWith(emptyOrderId + ",")));
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/api/admin/export/products").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithUserDetails("user1")
+    void exportsAreForAdminsOnly() throws Exception {
+        mockMvc.perform(get("/api/admin/export/products"))
+                .andExpect(status().isForbidden());
+    }
+
+    private String export(String url, String format, String contentType) throws Exception {
+        MvcResult started = mockMvc.perform(get(url).param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The export timeout, not the default one of async requests
+        assertEquals(exportTimeoutMs, started.getRequest().getAsyncContext().getTimeout());
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", contentType))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"" + url.substring(url.lastIndexOf('/') + 1) + "." + format + "\""))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private List<JsonNode> ndjson(String body) throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        return rows;
+    }
+}
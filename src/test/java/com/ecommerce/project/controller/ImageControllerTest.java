@@ -0,0 +1,174 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.FileService;
+import com.ecommerce.project.service.ImageVariants;
+import com.ecommerce.project.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithAnonymousUser
+class ImageControllerTest {
+    private static final byte[] CONTENT = {10, 20, 30, 40, 50, 60};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FileService fileService;
+
+    @Value("${project.image_directory}")
+    private String imageDirectory;
+
+    @Autowired
+    private ImageVariants imageVariants;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    private String fileName;
+
+    @BeforeEach
+    void uploadImage() throws Exception {
+        fileName = fileService.uploadFile(imageDirectory, new ByteArrayInputStream(CONTENT), ".png");
+    }
+
+    @Test
+    void imagesAreServedWithStrongETagsAndLongCaching() throws Exception {
+        String eTag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT)) + "\"";
+
+        // Read from the disk once, then from memory, and never from the database
+        for (int i = 0; i < 2; i++) {
+            perform(mockMvc, get("/images/" + fileName), 0)
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline"))
+                    .andExpect(header().string("Content-Security-Policy", "default-src 'none'"))
+                    .andExpect(content().bytes(CONTENT));
+        }
+
+        mockMvc.perform(get("/images/" + fileName).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void rangesAreServedAsPartialContent() throws Exception {
+        mockMvc.perform(get("/images/" + fileName).header(HttpHeaders.RANGE, "bytes=1-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-3/6"))
+                .andExpect(content().bytes(new byte[]{20, 30, 40}));
+
+        mockMvc.perform(get("/images/" + fileName).header(HttpHeaders.RANGE, "bytes=10-20"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void variantsAreMadeAfterTheUploadAndAgainWhenMissing() throws Exception {
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Images " + System.nanoTime())).getCategoryId();
+        ProductDTO product = new ProductDTO();
+        product.setProductName("Image product " + System.nanoTime());
+        product.setDescription("Product with variants");
+        product.setQuantity(1);
+        product.setPrice(10.0);
+        Long productId = productService.addProduct(categoryId, product).getProductId();
+
+        BufferedImage image = new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        String imageName = productService.updateProductImage(productId, new ByteArrayInputStream(png.toByteArray()), MediaType.IMAGE_PNG).getImage();
+
+        Path thumbnail = imageVariants.getDirectory(ImageVariants.Variant.THUMBNAIL).resolve(imageName);
+        awaitFile(thumbnail);
+        assertVariant("thumbnail", imageName, 150, 75);
+        assertVariant("listing", imageName, 400, 200);
+
+        // Gone from the disk before it was ever served: the original is sent and the variant made again
+        Path detail = imageVariants.getDirectory(ImageVariants.Variant.DETAIL).resolve(imageName);
+        Files.delete(detail);
+        mockMvc.perform(get("/images/detail/" + imageName))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().bytes(png.toByteArray()));
+        // Each request that still finds it missing queues it again
+        for (int i = 0; i < 100 && !Files.exists(detail); i++) {
+            mockMvc.perform(get("/images/detail/" + imageName));
+            Thread.sleep(50);
+        }
+        assertVariant("detail", imageName, 1000, 500);
+
+        mockMvc.perform(get("/images/poster/" + imageName))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void onlyImageFilesCanBeRead() throws Exception {
+        mockMvc.perform(get("/images/missing.png"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("Image not found")));
+        mockMvc.perform(get("/images/.upload-1.tmp"))
+                .andExpect(status().isNotFound());
+        // Files a browser would render as a document are never served, even when they are in the directory
+        for (String document : new String[]{"page.html", "drawing.svg", "noextension"}) {
+            Files.writeString(Path.of(imageDirectory, document), "<script>alert(1)</script>");
+            mockMvc.perform(get("/images/" + document))
+                    .andExpect(status().isNotFound());
+        }
+        // Turned away by the firewall before it reaches the controller
+        mockMvc.perform(get("/images/..%2Fpom.xml"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    private void assertVariant(String variant, String imageName, int width, int height) throws Exception {
+        byte[] content = mockMvc.perform(get("/images/" + variant + "/" + imageName))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andReturn().getResponse().getContentAsByteArray();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    private static void awaitFile(Path file) throws InterruptedException {
+        for (int i = 0; i < 100 && !Files.exists(file); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(Files.exists(file), file + " was not made");
+    }
+}
@@ -0,0 +1,196 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.config.AppConstants;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ImportErrorDTO;
+import com.ecommerce.project.payload.ImportResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.ProductChangedEvent;
+import com.ecommerce.project.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("admin")
+class ImportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void csvRowsAreImportedAndBadRowsReported() throws Exception {
+        String suffix = " " + System.nanoTime();
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Import" + suffix)).getCategoryId();
+        ProductDTO existing = new ProductDTO();
+        existing.setProductName("Existing" + suffix);
+        existing.setDescription("Already in the catalog");
+        existing.setQuantity(1);
+        existing.setPrice(10.0);
+        productService.addProduct(categoryId, existing);
+
+        // Columns in any order, unknown columns are ignored
+        String csv = "productId,categoryId,productName,description,quantity,price,discount\r\n"
+                + "," + categoryId + ",Imported" + suffix + ",\"Line one, \"\"quoted\"\"\nline two\",5,100,10\r\n"
+                + "," + categoryId + ",Existing" + suffix + ",Same name as a product,1,10,\r\n"
+                + "," + categoryId + ",Imported" + suffix + ",Same name as a row above,1,10,\r\n"
+                + ",-1,Unknown category" + suffix + ",Category does not exist,1,10,\r\n"
+                + "," + categoryId + ",No,Too short,1,10,\r\n"
+                + "," + categoryId + ",Not a number" + suffix + ",Quantity is not a number,many,10,\r\n"
+                + "," + categoryId + ",Too few values\r\n"
+                + "," + categoryId + ",Not finite" + suffix + ",Price is not a finite number,1,Infinity,\r\n"
+                + "\r\n"
+                + "," + categoryId + ",Second import" + suffix + ",No discount column value,3,20,\r\n";
+
+        ImportResponse response = importProducts("csv", csv, 10);
+
+        assertEquals(2, response.getImported());
+        assertEquals(7, response.getFailed());
+        Map<Integer, String> errors = response.getErrors().stream()
+                .collect(Collectors.toMap(ImportErrorDTO::getLine, ImportErrorDTO::getMessage));
+        assertEquals(List.of(4, 5, 6, 7, 8, 9, 10), errors.keySet().stream().sorted().toList());
+        assertTrue(errors.get(4).contains("already exists"));
+        assertTrue(errors.get(5).contains("already exists"));
+        assertEquals("Category not found with categoryId: -1", errors.get(6));
+        assertEquals("productName: Product name must contain at least 3 characters", errors.get(7));
+        assertEquals("quantity is not a valid number: many", errors.get(8));
+        assertEquals("Expected 7 values but found 3", errors.get(9));
+        assertEquals("price is not a valid number: Infinity", errors.get(10));
+
+        Product imported = productRepository.findAll().stream()
+                .filter(product -> product.getProductName().equals("Imported" + suffix))
+                .findFirst().orElseThrow();
+        assertEquals("Line one, \"quoted\"\nline two", imported.getDescription());
+        assertEquals(90.0, imported.getSpecialPrice());
+        assertEquals("default.png", imported.getImage());
+        assertEquals(categoryId, imported.getCategory().getCategoryId());
+    }
+
+    // One names snapshot, a few sequence calls and one insert batch, whatever the number of rows
+    @Test
+    void ndjsonRowsAreWrittenInOneBatch() throws Exception {
+        String suffix = " " + System.nanoTime();
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Batch" + suffix)).getCategoryId();
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 120; i++) {
+            ndjson.append(objectMapper.writeValueAsString(Map.of(
+                    "productName", "Batch " + i + suffix,
+                    "description", "Imported in one batch",
+                    "categoryId", categoryId,
+                    "quantity", i,
+                    "price", 9.99
+            ))).append('\n');
+        }
+        ndjson.append("{\"productName\": \n");
+
+        ImportResponse response = importProducts("ndjson", ndjson.toString(), 8);
+
+        assertEquals(120, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertEquals(121, response.getErrors().get(0).getLine());
+        assertTrue(response.getErrors().get(0).getMessage().startsWith("Malformed JSON"));
+    }
+
+    // The request keeps one persistence context open for the whole import, each chunk must leave it empty
+    @Test
+    void chunksLeaveThePersistenceContextEmpty() throws Exception {
+        String suffix = " " + System.nanoTime();
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Chunks" + suffix)).getCategoryId();
+        StringBuilder csv = new StringBuilder("productName,description,categoryId,quantity,price\n");
+        for (int i = 0; i <= AppConstants.IMPORT_CHUNK_SIZE; i++) {
+            csv.append("Chunk ").append(i).append(suffix).append(",Imported in two chunks,").append(categoryId).append(",1,5\n");
+        }
+
+        // Counted when each chunk transaction completes
+        List<Integer> managedEntities = new ArrayList<>();
+        ApplicationListener<ApplicationEvent> listener = event -> {
+            if (event instanceof PayloadApplicationEvent<?> payload && payload.getPayload() instanceof ProductChangedEvent) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                        managedEntities.add(entityManager.unwrap(SessionImplementor.class)
+                                .getPersistenceContext().getNumberOfManagedEntities());
+                    }
+                });
+            }
+        };
+        applicationContext.addApplicationListener(listener);
+        ImportResponse response;
+        try {
+            response = importProducts("csv", csv.toString(), 30);
+        } finally {
+            applicationContext.removeApplicationListener(listener);
+        }
+
+        assertEquals(AppConstants.IMPORT_CHUNK_SIZE + 1, response.getImported());
+        assertEquals(List.of(0, 0), managedEntities);
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        mockMvc.perform(post("/api/admin/import/products").param("format", "xml").content(""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithUserDetails("user1")
+    void importsAreForAdminsOnly() throws Exception {
+        mockMvc.perform(post("/api/admin/import/products").content(""))
+                .andExpect(status().isForbidden());
+    }
+
+    private ImportResponse importProducts(String format, String body, int maxStatements) throws Exception {
+        String response = StatementBudget.perform(mockMvc, post("/api/admin/import/products")
+                                .param("format", format)
+                                .content(body),
+                        maxStatements)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, ImportResponse.class);
+    }
+}
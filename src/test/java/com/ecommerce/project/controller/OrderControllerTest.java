@@ -0,0 +1,77 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.OrderRequestDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.AddressRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("user1")
+class OrderControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Test
+    void checkoutDoesNotGrowWithTheCart() throws Exception {
+        User user = userRepository.findByUsername("user1").orElseThrow();
+        Address address = new Address("Budget street", "Budget building", "Bangkok", "Bangkok", "Thailand", "10110");
+        address.setUser(user);
+        Long addressId = addressRepository.save(address).getAddressId();
+        Long categoryId = categoryService.createCategory(new CategoryDTO(null, "Order budget " + System.nanoTime())).getCategoryId();
+
+        for (int cartSize : new int[]{1, 20}) {
+            for (int i = 0; i < cartSize; i++) {
+                ProductDTO product = new ProductDTO();
+                product.setProductName("Order budget product " + cartSize + "-" + i + "-" + System.nanoTime());
+                product.setDescription("Statement budget product");
+                product.setQuantity(100);
+                product.setPrice(100.0);
+                Long productId = productService.addProduct(categoryId, product).getProductId();
+                mockMvc.perform(post("/api/carts/products/" + productId + "/quantity/1"))
+                        .andExpect(status().isOk());
+            }
+
+            // The statements of OrderServiceTest, plus the refills of the pooled sequences of a first checkout
+            OrderRequestDTO request = new OrderRequestDTO(addressId, "card", "budget", "pg-budget", "success", "ok");
+            perform(mockMvc, post("/api/order/users/payments/card")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)), 14)
+                    .andExpect(status().isOk());
+        }
+    }
+}
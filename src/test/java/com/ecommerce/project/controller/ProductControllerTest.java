@@ -0,0 +1,119 @@
+package com.ecommerce.project.controller;
+
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.service.CategoryService;
+import com.ecommerce.project.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.ecommerce.project.controller.StatementBudget.perform;
+import static org.hamcrest.Matchers.endsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = StatementBudget.DATABASE)
+@AutoConfigureMockMvc
+@Import(StatementBudget.class)
+@WithUserDetails("admin")
+class ProductControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    private Long categoryId;
+
+    @BeforeEach
+    void createCategoryWithProducts() {
+        categoryId = categoryService.createCategory(new CategoryDTO(null, "Product budget " + System.nanoTime())).getCategoryId();
+        for (int i = 0; i < 20; i++) {
+            productService.addProduct(categoryId, product("Budget product " + i + "-" + System.nanoTime()));
+        }
+    }
+
+    @Test
+    void productReadsDoNotGrowWithThePage() throws Exception {
+        // Page and count, then nothing while the page is cached
+        perform(mockMvc, get("/api/products").param("pageSize", "20"), 2)
+                .andExpect(status().isOk());
+        perform(mockMvc, get("/api/categories/" + categoryId + "/products").param("pageSize", "20"), 2)
+                .andExpect(status().isOk());
+        perform(mockMvc, get("/api/categories/" + categoryId + "/products").param("pageSize", "20"), 0)
+                .andExpect(status().isOk());
+        perform(mockMvc, get("/api/products").param("after", "").param("pageSize", "20"), 1)
+                .andExpect(status().isOk());
+        // Matched in the search index, then the products of the page are read
+        perform(mockMvc, get("/api/products/keyword/budget").param("pageSize", "20"), 1)
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void productWritesStayWithinTheirStatementBudget() throws Exception {
+        // Insert and the duplicate name check, plus a possible refill of the product sequence.
+        // Every write also reads the product back for the search index once it is committed.
+        String created = perform(mockMvc, post("/api/categories/" + categoryId + "/product")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product("Budget added " + System.nanoTime()))), 4)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long productId = objectMapper.readValue(created, ProductDTO.class).getProductId();
+
+        ProductDTO update = product("Budget updated " + System.nanoTime());
+        update.setPrice(80.0);
+        perform(mockMvc, put("/api/products/" + productId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(update)), 5)
+                .andExpect(status().isOk());
+
+        MockMultipartFile image = new MockMultipartFile("image", "budget.png", MediaType.IMAGE_PNG_VALUE, new byte[]{1, 2, 3});
+        perform(mockMvc, multipart(HttpMethod.PUT, "/api/products/" + productId + "/image").file(image), 3)
+                .andExpect(status().isOk());
+        // The type of the part decides, whatever the file name says
+        MockMultipartFile page = new MockMultipartFile("image", "page.png", MediaType.TEXT_HTML_VALUE, "<script></script>".getBytes());
+        mockMvc.perform(multipart(HttpMethod.PUT, "/api/products/" + productId + "/image").file(page))
+                .andExpect(status().isBadRequest());
+        MockMultipartFile noExtension = new MockMultipartFile("image", "image", MediaType.IMAGE_PNG_VALUE, new byte[]{1, 2, 3});
+        mockMvc.perform(multipart(HttpMethod.PUT, "/api/products/" + productId + "/image").file(noExtension))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image").value(endsWith(".png")));
+
+        // Streamed as the raw body
+        perform(mockMvc, put("/api/products/" + productId + "/image")
+                .contentType(MediaType.IMAGE_PNG)
+                .content(new byte[]{1, 2, 3}), 3)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.image").value(endsWith(".png")));
+
+        perform(mockMvc, delete("/api/products/" + productId), 4)
+                .andExpect(status().isOk());
+    }
+
+    private static ProductDTO product(String name) {
+        ProductDTO product = new ProductDTO();
+        product.setProductName(name);
+        product.setDescription("Statement budget product");
+        product.setQuantity(100);
+        product.setPrice(100.0);
+        product.setDiscount(10.0);
+        return product;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.project.controller;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Routes the data source through datasource-proxy and records the statements each thread executes, so that a test
+// can fail when a request issues more round trips than its budget. A JDBC batch counts as one statement.
+// MockMvc runs the whole request, view rendering included, on the test thread.
+@TestConfiguration
+public class StatementBudget {
+    // Own database, shared by the controller tests so that they also share one application context
+    public static final String DATABASE = "spring.datasource.url=jdbc:h2:mem:controllers;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+
+    private static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    @Bean
+    public static BeanPostProcessor statementRecordingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new StatementRecorder())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Performs the request and fails, listing the statements, if it issued more than maxStatements
+    public static ResultActions perform(MockMvc mockMvc, RequestBuilder request, int maxStatements) throws Exception {
+        statements.get().clear();
+        ResultActions result = mockMvc.perform(request);
+        List<String> executed = List.copyOf(statements.get());
+        assertTrue(executed.size() <= maxStatements,
+                "Expected at most " + maxStatements + " statements but " + executed.size() + " were executed:\n"
+                        + String.join("\n", executed));
+        return result;
+    }
+
+    private static class StatementRecorder implements QueryExecutionListener {
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            queryInfoList.forEach(queryInfo -> statements.get().add(queryInfo.getQuery()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecommerce.project.mapper;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.util.Money;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Per-entity mapping cost of the reflective ModelMapper (before) against the generated mappers (after)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"1", "20"})
+    private int cartSize;
+
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+    private CartMapper cartMapper;
+
+    private Product product;
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        productMapper = new ProductMapperImpl();
+        cartMapper = new CartMapperImpl();
+
+        product = product(1L);
+        cart = new Cart();
+        cart.setCartId(1L);
+        for (long i = 0; i < cartSize; i++) {
+            CartItem cartItem = new CartItem();
+            cartItem.setCartItemId(i);
+            cartItem.setCart(cart);
+            cartItem.setProduct(product(i));
+            cartItem.setQuantity(2);
+            cartItem.setDiscount(10.0);
+            cartItem.setProductPrice(Money.of(90.0));
+            cart.getCartItems().add(cartItem);
+            cart.setTotalPrice(cart.getTotalPrice() + Money.of(180.0));
+        }
+    }
+
+    @Benchmark
+    public ProductDTO productModelMapper() {
+        return modelMapper.map(product, ProductDTO.class);
+    }
+
+    @Benchmark
+    public ProductDTO productGenerated() {
+        return productMapper.toProductDTO(product);
+    }
+
+    @Benchmark
+    public CartDTO cartModelMapper() {
+        // Same overlay the services used to build by hand around ModelMapper
+        CartDTO cartDTO = modelMapper.map(cart, CartDTO.class);
+        List<ProductDTO> productDTOs = cart.getCartItems().stream().map(cartItem -> {
+            ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
+            productDTO.setQuantity(cartItem.getQuantity());
+            return productDTO;
+        }).toList();
+        cartDTO.setProducts(productDTOs);
+        return cartDTO;
+    }
+
+    @Benchmark
+    public CartDTO cartGenerated() {
+        return cartMapper.toCartDTO(cart);
+    }
+
+    // The CartItem -> ProductDTO overlay (product fields with the quantity of the cart line) on its own
+    @Benchmark
+    public ProductDTO cartItemModelMapper() {
+        CartItem cartItem = cart.getCartItems().get(0);
+        ProductDTO productDTO = modelMapper.map(cartItem.getProduct(), ProductDTO.class);
+        productDTO.setQuantity(cartItem.getQuantity());
+        return productDTO;
+    }
+
+    @Benchmark
+    public ProductDTO cartItemGenerated() {
+        return cartMapper.toProductDTO(cart.getCartItems().get(0));
+    }
+
+    private static Product product(long productId) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setProductName("Product " + productId);
+        product.setDescription("Description of product " + productId);
+        product.setImage("default.png");
+        product.setQuantity(100);
+        product.setPrice(100.0);
+        product.setDiscount(10.0);
+        product.setSpecialPrice(90.0);
+        return product;
+    }
+}
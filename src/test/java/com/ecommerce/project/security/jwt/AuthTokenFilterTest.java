@@ -0,0 +1,70 @@
+package com.ecommerce.project.security.jwt;
+
+import com.ecommerce.project.model.AppRole;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.RoleRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.security.services.UserDetailsCache;
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthTokenFilterTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.app.jwtCookieName}")
+    private String jwtCookie;
+
+    @Test
+    void revokedRolesApplyToTokensAlreadyIssued() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        User user = transaction.execute(status -> {
+            User admin = new User("revoked", "revoked@example.com", "password");
+            admin.setRoles(new HashSet<>(Set.of(roleRepository.findByRoleName(AppRole.ROLE_ADMIN).orElseThrow())));
+            return userRepository.save(admin);
+        });
+        Cookie token = new Cookie(jwtCookie, jwtUtils.generateTokenFromUsername(UserDetailsImpl.build(user)));
+
+        mockMvc.perform(get("/api/admin/caches").cookie(token))
+                .andExpect(status().isOk());
+
+        Long userId = user.getUserId();
+        transaction.executeWithoutResult(status -> userRepository.findById(userId).orElseThrow()
+                .setRoles(new HashSet<>(Set.of(roleRepository.findByRoleName(AppRole.ROLE_USER).orElseThrow()))));
+        userDetailsCache.evict(user.getUsername());
+
+        mockMvc.perform(get("/api/admin/caches").cookie(token))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.project.security.jwt;
+
+import com.ecommerce.project.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Token issue and verification cost, with the verified-token cache (warm) and without it (cold)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+    private static final String SECRET = "mySecretKey123912738682478965238475692837459082374598";
+
+    private JwtUtils cachedJwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private UserDetailsImpl userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachedJwtUtils = jwtUtils(10_000);
+        uncachedJwtUtils = jwtUtils(0);
+        userDetails = new UserDetailsImpl(1L, "user1", "user1@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_SELLER")));
+        token = cachedJwtUtils.generateTokenFromUsername(userDetails);
+    }
+
+    @Benchmark
+    public String generateTokenFromUsername() {
+        return cachedJwtUtils.generateTokenFromUsername(userDetails);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenWarm() {
+        return cachedJwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenCold() {
+        return uncachedJwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromJwtTokenWarm() {
+        return cachedJwtUtils.getUsernameFromJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromJwtTokenCold() {
+        return uncachedJwtUtils.getUsernameFromJwtToken(token);
+    }
+
+    private static JwtUtils jwtUtils(int cacheMaxSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCookie", "springBootEcom");
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheTtlMs", 300_000L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.util.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CartServiceTest {
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void repriceProductUpdatesCartItemsAndTotals() {
+        Product repriced = createProduct("Repriced product", 100.0);
+        Product other = createProduct("Unchanged product", 10.0);
+        Cart first = createCart("reprice0", repriced, 2, other, 1);
+        Cart second = createCart("reprice1", repriced, 1, other, 3);
+        Cart untouched = createCart("reprice2", other, 5, other, 0);
+
+        assertEquals(2, cartService.repriceProduct(repriced.getProductId(), Money.of(80.0)));
+        // Repricing to the same price touches nothing
+        assertEquals(0, cartService.repriceProduct(repriced.getProductId(), Money.of(80.0)));
+
+        assertEquals(Money.of(170.0), cartRepository.findById(first.getCartId()).orElseThrow().getTotalPrice());
+        assertEquals(Money.of(110.0), cartRepository.findById(second.getCartId()).orElseThrow().getTotalPrice());
+        assertEquals(Money.of(50.0), cartRepository.findById(untouched.getCartId()).orElseThrow().getTotalPrice());
+    }
+
+    private Product createProduct(String name, double price) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription("Cart test product");
+        product.setQuantity(100);
+        product.setPrice(price);
+        product.setDiscount(0.0);
+        product.setSpecialPrice(price);
+        return productRepository.save(product);
+    }
+
+    private Cart createCart(String username, Product firstProduct, int firstQuantity, Product secondProduct, int secondQuantity) {
+        Cart cart = new Cart();
+        cart.setUser(userRepository.save(new User(username, username + "@example.com", "password")));
+        addItem(cart, firstProduct, firstQuantity);
+        if (secondQuantity > 0) {
+            addItem(cart, secondProduct, secondQuantity);
+        }
+        return cartRepository.save(cart);
+    }
+
+    private void addItem(Cart cart, Product product, int quantity) {
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cart);
+        cartItem.setProduct(product);
+        cartItem.setQuantity(quantity);
+        cartItem.setDiscount(0.0);
+        cartItem.setProductPrice(Money.of(product.getSpecialPrice()));
+        cart.getCartItems().add(cartItem);
+        cart.setTotalPrice(cart.getTotalPrice() + Money.times(cartItem.getProductPrice(), quantity));
+    }
+}
@@ -0,0 +1,300 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Address;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.CartDTO;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.*;
+import com.ecommerce.project.util.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The periodic flush is pushed out of the way, flushes are triggered by the test. The small pool makes a cart
+// operation that needs two connections at once stall and fail.
+@SpringBootTest(properties = {
+        "spring.app.cartFlushMs=3600000",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=5000"
+})
+class CartStoreTest {
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void quantityChangesAreWrittenBehindAndSeenByCheckout() {
+        User user = userRepository.save(new User("cartstore", "cartstore@example.com", "password"));
+        Product product = createProduct("Written behind", 10);
+        Cart cart = createCart(user, product);
+        CartItem cartItem = cart.getCartItems().get(0);
+
+        cartStore.updateQuantity(user.getEmail(), product.getProductId(), 1);
+        CartDTO updated = cartStore.updateQuantity(user.getEmail(), product.getProductId(), 1);
+        assertEquals(3, updated.getProducts().get(0).getQuantity());
+        assertEquals(300.0, updated.getTotalPrice());
+        assertEquals(updated, cartStore.find(user.getEmail()));
+        // Nothing is written yet
+        assertEquals(1, cartItemRepository.findById(cartItem.getCartItemId()).orElseThrow().getQuantity());
+
+        // The stock is held right away
+        assertThrows(APIException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                cartStore.updateQuantity(user.getEmail(), product.getProductId(), 1);
+            }
+        });
+        assertEquals(10, cartStore.find(user.getEmail()).getProducts().get(0).getQuantity());
+        for (int i = 0; i < 7; i++) {
+            cartStore.updateQuantity(user.getEmail(), product.getProductId(), -1);
+        }
+
+        cartStore.flush();
+        assertEquals(3, cartItemRepository.findById(cartItem.getCartItemId()).orElseThrow().getQuantity());
+        assertEquals(Money.of(300.0), cartRepository.findById(cart.getCartId()).orElseThrow().getTotalPrice());
+        assertEquals(3, reservationRepository.findByCartIdAndProductId(cart.getCartId(), product.getProductId()).getQuantity());
+
+        // Checkout writes the pending change before reading the cart
+        cartStore.updateQuantity(user.getEmail(), product.getProductId(), 1);
+        Address address = new Address("Store street", "Store building", "Bangkok", "Bangkok", "Thailand", "10110");
+        address.setUser(user);
+        Long addressId = addressRepository.save(address).getAddressId();
+        OrderDTO order = orderService.placeOrder(user.getEmail(), addressId, "card", "test", "pg-store", "success", "ok");
+
+        assertEquals(4, order.getOrderItems().get(0).getQuantity());
+        assertEquals(400.0, order.getTotalAmount());
+        assertEquals(6, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+        assertNull(cartStore.find(user.getEmail()));
+        assertEquals(0, reservationRepository.findHeldQuantitiesByCartId(cart.getCartId()).size());
+    }
+
+    @Test
+    void linesDroppingToZeroGoThroughTheDatabase() {
+        User user = userRepository.save(new User("cartstorezero", "cartstorezero@example.com", "password"));
+        Product product = createProduct("Dropped to zero", 10);
+        createCart(user, product);
+
+        assertNull(cartStore.updateQuantity(user.getEmail(), product.getProductId(), -1));
+        assertNull(cartStore.updateQuantity(user.getEmail(), -1L, 1));
+        assertNull(cartStore.updateQuantity("nobody@example.com", product.getProductId(), 1));
+    }
+
+    @Test
+    void cartsCannotBeFrozenInsideATransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status ->
+                cartStore.withCartFrozen("cartstorenested@example.com", () -> null)));
+    }
+
+    @Test
+    void pendingChangesSurviveTheRollbackOfTheFirstFreeze() throws Exception {
+        User user = userRepository.save(new User("cartstorerollback", "cartstorerollback@example.com", "password"));
+        Product product = createProduct("Frozen twice", 10);
+        Cart cart = createCart(user, product);
+        String email = user.getEmail();
+        cartStore.updateQuantity(email, product.getProductId(), 2);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // The first freeze stays open while a second one commits, then rolls back
+        CountDownLatch frozen = new CountDownLatch(1);
+        CountDownLatch rollBack = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(() -> cartStore.withCartFrozen(email, () -> transaction.execute(status -> {
+                frozen.countDown();
+                assertDoesNotThrow(() -> rollBack.await());
+                status.setRollbackOnly();
+                return null;
+            })));
+            frozen.await();
+            cartStore.withCartFrozen(email, () -> null);
+            rollBack.countDown();
+            first.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNull(cartStore.find(email));
+        assertEquals(3, cartItemRepository.findById(cart.getCartItems().get(0).getCartItemId()).orElseThrow().getQuantity());
+        assertEquals(3, reservationRepository.findByCartIdAndProductId(cart.getCartId(), product.getProductId()).getQuantity());
+    }
+
+    @Test
+    void pendingChangesSurviveConcurrentFlushesAndRolledBackFreezes() throws Exception {
+        User user = userRepository.save(new User("cartstorerace", "cartstorerace@example.com", "password"));
+        Product product = createProduct("Frozen concurrently", 1000);
+        Cart cart = createCart(user, product);
+        String email = user.getEmail();
+        Long productId = product.getProductId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        AtomicInteger quantity = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = List.of(
+                    executor.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            int delta = i % 3 == 2 ? -1 : 1;
+                            if (cartStore.updateQuantity(email, productId, delta) != null) {
+                                quantity.addAndGet(delta);
+                            }
+                        }
+                    }),
+                    executor.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            cartStore.flush();
+                        }
+                    }),
+                    executor.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            cartStore.withCartFrozen(email, () -> transaction.execute(status -> {
+                                status.setRollbackOnly();
+                                return null;
+                            }));
+                        }
+                    }),
+                    executor.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            cartStore.withCartFrozen(email, () -> null);
+                        }
+                    }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        cartStore.withCartFrozen(email, () -> null);
+        assertNull(cartStore.find(email));
+        assertEquals(quantity.get(), cartItemRepository.findById(cart.getCartItems().get(0).getCartItemId()).orElseThrow().getQuantity());
+        assertEquals(quantity.get(), reservationRepository.findByCartIdAndProductId(cart.getCartId(), productId).getQuantity());
+    }
+
+    // Each checkout writes the pending changes of its cart before its order transaction takes a connection, so
+    // concurrent checkouts and flushes never wait for a second connection while holding one
+    @Test
+    void dirtyCartsAreCheckedOutConcurrentlyWithPeriodicFlushes() throws Exception {
+        int buyers = 8;
+        Product product = createProduct("Checked out concurrently", 100);
+        List<String> emails = new ArrayList<>();
+        List<Long> addressIds = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            User user = userRepository.save(new User("cartstorebuyer" + i, "cartstorebuyer" + i + "@example.com", "password"));
+            createCart(user, product);
+            Address address = new Address("Store street", "Store building", "Bangkok", "Bangkok", "Thailand", "10110");
+            address.setUser(user);
+            emails.add(user.getEmail());
+            addressIds.add(addressRepository.save(address).getAddressId());
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean checkingOut = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(buyers + 1);
+        try {
+            Future<?> flushes = executor.submit(() -> {
+                start.await();
+                while (checkingOut.get()) {
+                    cartStore.flush();
+                }
+                return null;
+            });
+            List<Future<OrderDTO>> orders = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                String email = emails.get(i);
+                Long addressId = addressIds.get(i);
+                // The click right before the checkout leaves the cart dirty when it is frozen
+                orders.add(executor.submit(() -> {
+                    start.await();
+                    assertNotNull(cartStore.updateQuantity(email, product.getProductId(), 1));
+                    return orderService.placeOrder(email, addressId, "card", "test", "pg-" + email, "success", "ok");
+                }));
+            }
+            start.countDown();
+
+            for (Future<OrderDTO> order : orders) {
+                assertEquals(2, order.get().getOrderItems().get(0).getQuantity());
+            }
+            checkingOut.set(false);
+            flushes.get();
+        } finally {
+            checkingOut.set(false);
+            executor.shutdown();
+        }
+
+        assertEquals(100 - 2 * buyers, productRepository.findById(product.getProductId()).orElseThrow().getQuantity());
+        for (String email : emails) {
+            assertNull(cartStore.find(email));
+        }
+    }
+
+    private Product createProduct(String name, int quantity) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription("Cart store test product");
+        product.setQuantity(quantity);
+        product.setPrice(100.0);
+        product.setDiscount(0.0);
+        product.setSpecialPrice(100.0);
+        return productRepository.save(product);
+    }
+
+    private Cart createCart(User user, Product product) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cart);
+        cartItem.setProduct(product);
+        cartItem.setQuantity(1);
+        cartItem.setDiscount(0.0);
+        cartItem.setProductPrice(Money.of(product.getSpecialPrice()));
+        cart.getCartItems().add(cartItem);
+        cart.setTotalPrice(cartItem.getProductPrice());
+        cart = cartRepository.save(cart);
+        inventoryReservationService.reserve(cart, product, 1);
+        return cart;
+    }
+}
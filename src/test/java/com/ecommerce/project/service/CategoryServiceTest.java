@@ -0,0 +1,69 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.payload.CategoryDTO;
+import com.ecommerce.project.payload.CursorPaginationResponse;
+import com.ecommerce.project.payload.PaginationResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Own database, so that categories created by other tests do not show up in the pages
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:categories;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CategoryServiceTest {
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void categoriesAreServedFromTheSnapshot() {
+        for (String name : List.of("Snapshot toys", "Snapshot books", "Snapshot games", "Snapshot audio", "Snapshot tools")) {
+            categoryService.createCategory(new CategoryDTO(null, name));
+        }
+        CategoryDTO renamed = categoryService.createCategory(new CategoryDTO(null, "Snapshot zzz"));
+        categoryService.updateCategory(renamed.getCategoryId(), new CategoryDTO(null, "Snapshot cards"));
+        CategoryDTO deleted = categoryService.createCategory(new CategoryDTO(null, "Snapshot removed"));
+        categoryService.deleteCategory(deleted.getCategoryId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        PaginationResponse<CategoryDTO> page = categoryService.getAllCategories(1, 2, "categoryName", "desc");
+        assertEquals(List.of("Snapshot games", "Snapshot cards"), names(page.getContent()));
+        assertEquals(6, page.getTotalElements());
+        assertEquals(3, page.getTotalPages());
+
+        // Walk every keyset page and check that it sees the same order
+        List<CategoryDTO> scrolled = new ArrayList<>();
+        String after = "";
+        CursorPaginationResponse<CategoryDTO> window;
+        do {
+            window = categoryService.getAllCategories(after, 4, "categoryName", "asc");
+            scrolled.addAll(window.getContent());
+            after = window.getNextCursor();
+        } while (!window.isLastPage());
+        assertEquals(List.of("Snapshot audio", "Snapshot books", "Snapshot cards", "Snapshot games", "Snapshot tools", "Snapshot toys"),
+                names(scrolled));
+
+        assertThrows(APIException.class, () -> categoryService.createCategory(new CategoryDTO(null, "Snapshot books")));
+        assertThrows(APIException.class, () -> categoryService.updateCategory(renamed.getCategoryId(), new CategoryDTO(null, "Snapshot toys")));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private static List<String> names(List<CategoryDTO> categories) {
+        return categories.stream().map(CategoryDTO::getCategoryName).toList();
+    }
+}
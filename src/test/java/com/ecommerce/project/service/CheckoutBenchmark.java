@@ -0,0 +1,130 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.*;
+import com.ecommerce.project.repositories.*;
+import com.ecommerce.project.util.Money;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Reports JDBC statements and latency of OrderService.placeOrder as the cart grows.
+// Not part of the regular test run: mvn test -Dtest=CheckoutBenchmark
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CheckoutBenchmark {
+    private static final int[] CART_SIZES = {1, 10, 30, 100};
+    private static final int WARMUP_ORDERS = 3;
+    private static final int MEASURED_ORDERS = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reportStatementsAndLatencyPerCartSize() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = userRepository.findByUsername("user1").orElseThrow();
+        Address address = new Address("Benchmark street", "Benchmark building", "Bangkok", "Bangkok", "Thailand", "10110");
+        address.setUser(user);
+        Long addressId = addressRepository.save(address).getAddressId();
+
+        System.out.printf("%n%10s %16s %14s %14s%n", "cart size", "statements/order", "median (ms)", "max (ms)");
+        for (int cartSize : CART_SIZES) {
+            List<Long> productIds = createProducts(cartSize);
+            long[] latencies = new long[MEASURED_ORDERS];
+            long statements = 0;
+
+            for (int i = 0; i < WARMUP_ORDERS + MEASURED_ORDERS; i++) {
+                transactionTemplate.executeWithoutResult(status -> fillCart(user.getUsername(), productIds));
+
+                statistics.clear();
+                long startTime = System.nanoTime();
+                orderService.placeOrder(user.getEmail(), addressId, "card", "benchmark", "pg-1", "success", "ok");
+                long elapsed = System.nanoTime() - startTime;
+
+                if (i >= WARMUP_ORDERS) {
+                    latencies[i - WARMUP_ORDERS] = elapsed;
+                    statements = statistics.getPrepareStatementCount();
+                }
+            }
+
+            Arrays.sort(latencies);
+            System.out.printf("%10d %16d %14.2f %14.2f%n",
+                    cartSize,
+                    statements,
+                    latencies[MEASURED_ORDERS / 2] / 1_000_000.0,
+                    latencies[MEASURED_ORDERS - 1] / 1_000_000.0);
+        }
+    }
+
+    private List<Long> createProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setProductName("Benchmark product " + count + "-" + i);
+            product.setDescription("Benchmark product description");
+            product.setQuantity(1_000_000);
+            product.setPrice(100.0);
+            product.setDiscount(10.0);
+            product.setSpecialPrice(90.0);
+            products.add(product);
+        }
+
+        return productRepository.saveAll(products).stream()
+                .map(Product::getProductId)
+                .toList();
+    }
+
+    private void fillCart(String username, List<Long> productIds) {
+        User user = userRepository.findByUsername(username).orElseThrow();
+        Cart cart = cartRepository.findCartByEmail(user.getEmail());
+        if (cart == null) {
+            cart = new Cart();
+            cart.setUser(user);
+            cart = cartRepository.save(cart);
+        }
+
+        for (Long productId : productIds) {
+            Product product = productRepository.findById(productId).orElseThrow();
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(2);
+            cartItem.setDiscount(product.getDiscount());
+            cartItem.setProductPrice(Money.of(product.getSpecialPrice()));
+            cart.getCartItems().add(cartItem);
+        }
+        cart.setTotalPrice(cart.computeTotalPrice());
+        cartRepository.save(cart);
+    }
+}
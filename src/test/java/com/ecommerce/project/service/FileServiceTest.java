@@ -0,0 +1,76 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.exceptions.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileServiceTest {
+    @TempDir
+    private Path root;
+
+    @Test
+    void uploadsAreMovedIntoPlaceWhole() throws Exception {
+        FileServiceImpl fileService = new FileServiceImpl(4, 1, 0);
+        Path directory = root.resolve("images");
+
+        String fileName = fileService.uploadFile(directory.toString(), new ByteArrayInputStream(new byte[]{1, 2, 3, 4}), ".png");
+        assertTrue(fileName.endsWith(".png"));
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(directory.resolve(fileName)));
+
+        // Too large: nothing is left behind, not even the temp file
+        assertThrows(APIException.class,
+                () -> fileService.uploadFile(directory.toString(), new ByteArrayInputStream(new byte[5]), ".png"));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void uploadsAboveTheLimitAreTurnedAway() throws Exception {
+        FileServiceImpl fileService = new FileServiceImpl(4, 1, 0);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slowStream = new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return -1;
+            }
+        };
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return fileService.uploadFile(root.toString(), slowStream, ".png");
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reading.await();
+        assertThrows(TooManyRequestsException.class,
+                () -> fileService.uploadFile(root.toString(), new ByteArrayInputStream(new byte[1]), ".png"));
+
+        release.countDown();
+        assertNotNull(first.get());
+        assertNotNull(fileService.uploadFile(root.toString(), new ByteArrayInputStream(new byte[1]), ".png"));
+    }
+}
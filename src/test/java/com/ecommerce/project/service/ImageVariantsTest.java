@@ -0,0 +1,55 @@
+package com.ecommerce.project.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantsTest {
+    @TempDir
+    private Path directory;
+
+    private ImageVariants imageVariants;
+
+    @AfterEach
+    void stop() {
+        imageVariants.stop();
+    }
+
+    @Test
+    void imagesAboveThePixelLimitAreNotDecodedAndNotRetriedUntilTheirEntryExpires() throws Exception {
+        imageVariants = new ImageVariants(directory.toString(), 1, 10, 100 * 100, 1000);
+        writePng("large.png", 200, 200);
+
+        imageVariants.generate("large.png");
+        for (int i = 0; i < 100 && !imageVariants.hasFailed("large.png"); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(imageVariants.hasFailed("large.png"));
+        Path thumbnail = imageVariants.getDirectory(ImageVariants.Variant.THUMBNAIL).resolve("large.png");
+        assertFalse(Files.exists(thumbnail));
+
+        // Even once the image could be decoded, it is left alone while its failure is remembered
+        writePng("large.png", 100, 50);
+        imageVariants.generate("large.png");
+        Thread.sleep(200);
+        assertFalse(Files.exists(thumbnail));
+
+        Thread.sleep(1000);
+        imageVariants.generate("large.png");
+        for (int i = 0; i < 100 && !Files.exists(thumbnail); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(100, ImageIO.read(thumbnail.toFile()).getWidth());
+    }
+
+    private void writePng(String fileName, int width, int height) throws Exception {
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", directory.resolve(fileName).toFile());
+    }
+}
@@ -0,0 +1,137 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.InventoryReservationRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.app.reservationTtlMs=60000")
+class InventoryReservationServiceTest {
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentReservationsNeverExceedStock() throws Exception {
+        Product product = createProduct("Reserved concurrently", 10);
+        List<Cart> carts = createCarts("concurrent", 25);
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Cart cart : carts) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        inventoryReservationService.reserve(cart, product, 1);
+                        reserved.incrementAndGet();
+                    } catch (APIException e) {
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(10, reserved.get());
+        assertEquals(15, rejected.get());
+        assertEquals(10, reservationRepository.sumQuantityByProductId(product.getProductId()));
+    }
+
+    @Test
+    void releasedAndRolledBackHoldsBecomeAvailableAgain() {
+        Product product = createProduct("Reserved and released", 3);
+        List<Cart> carts = createCarts("release", 2);
+        Cart first = carts.get(0);
+        Cart second = carts.get(1);
+
+        inventoryReservationService.reserve(first, product, 3);
+        assertThrows(APIException.class, () -> inventoryReservationService.reserve(second, product, 1));
+
+        inventoryReservationService.release(first.getCartId(), product.getProductId());
+
+        // A hold taken by a transaction that rolls back is handed back
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            inventoryReservationService.reserve(second, product, 3);
+            status.setRollbackOnly();
+        });
+
+        inventoryReservationService.reserve(second, product, 3);
+        assertEquals(3, reservationRepository.sumQuantityByProductId(product.getProductId()));
+    }
+
+    @Test
+    void expiredHoldsAreReleasedByTheSweeper() {
+        Product product = createProduct("Reserved and expired", 2);
+        List<Cart> carts = createCarts("expiry", 2);
+
+        inventoryReservationService.reserve(carts.get(0), product, 2);
+        reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getCart().getCartId().equals(carts.get(0).getCartId()))
+                .forEach(reservation -> {
+                    reservation.setExpiresAt(reservation.getExpiresAt().minusSeconds(120));
+                    reservationRepository.save(reservation);
+                });
+
+        inventoryReservationService.releaseExpired();
+
+        inventoryReservationService.reserve(carts.get(1), product, 2);
+        assertEquals(2, reservationRepository.sumQuantityByProductId(product.getProductId()));
+    }
+
+    private Product createProduct(String name, int quantity) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription("Reservation test product");
+        product.setQuantity(quantity);
+        product.setPrice(100.0);
+        product.setDiscount(0.0);
+        product.setSpecialPrice(100.0);
+        return productRepository.save(product);
+    }
+
+    private List<Cart> createCarts(String prefix, int count) {
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            User user = userRepository.save(new User(prefix + i, prefix + i + "@example.com", "password"));
+            Cart cart = new Cart();
+            cart.setUser(user);
+            carts.add(cartRepository.save(cart));
+        }
+        return carts;
+    }
+}
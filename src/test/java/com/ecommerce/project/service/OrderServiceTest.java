@@ -0,0 +1,106 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.*;
+import com.ecommerce.project.payload.OrderDTO;
+import com.ecommerce.project.repositories.*;
+import com.ecommerce.project.util.Money;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderServiceTest {
+    // Selects of cart, address, holds and held stock, batched inserts, stock update,
+    // deletes of cart items and holds, the cart update and the read back of the ordered products for the search index,
+    // whatever the number of lines
+    private static final int CHECKOUT_STATEMENT_BUDGET = 12;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void checkoutStatementsDoNotGrowWithTheCart() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        User user = userRepository.save(new User("checkout", "checkout@example.com", "password"));
+        Address address = new Address("Checkout street", "Checkout building", "Bangkok", "Bangkok", "Thailand", "10110");
+        address.setUser(user);
+        Long addressId = addressRepository.save(address).getAddressId();
+
+        // The first checkouts also initialise the pooled sequence generators
+        for (int i = 0; i < 2; i++) {
+            fillCart(user, createProducts(1));
+            orderService.placeOrder(user.getEmail(), addressId, "card", "test", "pg-warmup", "success", "ok");
+        }
+
+        for (int cartSize : new int[]{1, 30}) {
+            List<Product> products = createProducts(cartSize);
+            fillCart(user, products);
+
+            statistics.clear();
+            OrderDTO order = orderService.placeOrder(user.getEmail(), addressId, "card", "test", "pg-" + cartSize, "success", "ok");
+
+            assertEquals(cartSize, order.getOrderItems().size());
+            assertTrue(statistics.getPrepareStatementCount() <= CHECKOUT_STATEMENT_BUDGET,
+                    "Checkout of " + cartSize + " lines used " + statistics.getPrepareStatementCount() + " statements");
+            assertEquals(9, productRepository.findById(products.get(0).getProductId()).orElseThrow().getQuantity());
+        }
+    }
+
+    private List<Product> createProducts(int count) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setProductName("Checkout product " + count + "-" + i + "-" + System.nanoTime());
+            product.setDescription("Checkout product description");
+            product.setQuantity(10);
+            product.setPrice(100.0);
+            product.setSpecialPrice(100.0);
+            products.add(product);
+        }
+        return productRepository.saveAll(products);
+    }
+
+    private void fillCart(User user, List<Product> products) {
+        Cart cart = cartRepository.findCartByEmail(user.getEmail());
+        if (cart == null) {
+            cart = new Cart();
+            cart.setUser(user);
+        }
+
+        for (Product product : products) {
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(1);
+            cartItem.setDiscount(0.0);
+            cartItem.setProductPrice(Money.of(product.getSpecialPrice()));
+            cart.getCartItems().add(cartItem);
+        }
+        cart.setTotalPrice(cart.computeTotalPrice());
+        cartRepository.save(cart);
+    }
+}
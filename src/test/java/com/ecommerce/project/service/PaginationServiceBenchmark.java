@@ -0,0 +1,37 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationServiceBenchmark {
+    private PaginationService paginationService;
+    private String cursor;
+
+    @Setup
+    public void setUp() {
+        paginationService = new PaginationService();
+        cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"price\":\"90.0\",\"productId\":\"42\"}".getBytes());
+    }
+
+    @Benchmark
+    public Pageable getPageable() {
+        return paginationService.getPageable(3, 50, "productName", "desc");
+    }
+
+    @Benchmark
+    public ScrollPosition getScrollPosition() {
+        return paginationService.getScrollPosition(cursor, "price", Product.class, "productId");
+    }
+}
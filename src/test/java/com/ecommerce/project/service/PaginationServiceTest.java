@@ -0,0 +1,52 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationServiceTest {
+    private final PaginationService paginationService = new PaginationService();
+
+    @Test
+    void cursorKeysAreConvertedToThePropertyTypes() {
+        KeysetScrollPosition position = (KeysetScrollPosition) paginationService.getScrollPosition(
+                cursor("{\"price\":\"90.0\",\"productId\":\"42\"}"), "price", Product.class, "productId");
+
+        assertEquals(Map.of("price", 90.0, "productId", 42L), position.getKeys());
+        assertTrue(paginationService.getScrollPosition("", "price", Product.class, "productId").isInitial());
+    }
+
+    @Test
+    void invalidCursorsAreRejected() {
+        // Not a number
+        assertInvalid("{\"price\":\"cheap\",\"productId\":\"42\"}", "Invalid pagination cursor");
+        assertInvalid("{\"price\":\"90.0\",\"productId\":\"x\"}", "Invalid pagination cursor");
+        // No id, or a null id
+        assertInvalid("{\"price\":\"90.0\"}", "Pagination cursor does not match sort property price");
+        assertInvalid("{\"price\":\"90.0\",\"productId\":null}", "Invalid pagination cursor");
+        // A key that is not part of the sort
+        assertInvalid("{\"price\":\"90.0\",\"productId\":\"42\",\"quantity\":\"1\"}", "Pagination cursor does not match sort property price");
+        assertInvalid("{\"productName\":\"Lamp\",\"productId\":\"42\"}", "Pagination cursor does not match sort property price");
+        // Not Base64 JSON
+        APIException e = assertThrows(APIException.class,
+                () -> paginationService.getScrollPosition("%%%", "price", Product.class, "productId"));
+        assertEquals("Invalid pagination cursor", e.getMessage());
+    }
+
+    private void assertInvalid(String json, String message) {
+        APIException e = assertThrows(APIException.class,
+                () -> paginationService.getScrollPosition(cursor(json), "price", Product.class, "productId"));
+        assertEquals(message, e.getMessage());
+    }
+
+    private static String cursor(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
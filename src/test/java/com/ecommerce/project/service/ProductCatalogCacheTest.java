@@ -0,0 +1,46 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.payload.PaginationResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.service.ProductCatalogCache.PageKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogCacheTest {
+    private final ProductCatalogCache cache = new ProductCatalogCache(10, 60000);
+    private final PageKey key = new PageKey(1L, 0, 10, "productId", "asc");
+
+    @Test
+    void pagesAreLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        PaginationResponse<ProductDTO> page = cache.getPage(key, () -> load(loads));
+
+        assertSame(page, cache.getPage(key, () -> load(loads)));
+        assertEquals(1, loads.get());
+
+        cache.onProductChanged(new ProductChangedEvent(Set.of(1L), Set.of()));
+        cache.getPage(key, () -> load(loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void pageLoadedDuringAChangeIsNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPage(key, () -> {
+            cache.onProductChanged(new ProductChangedEvent(Set.of(2L), Set.of()));
+            return load(loads);
+        });
+
+        cache.getPage(key, () -> load(loads));
+        assertEquals(2, loads.get());
+    }
+
+    private static PaginationResponse<ProductDTO> load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new PaginationResponse<>();
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.exceptions.APIException;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Import(ProductSearchIndexTest.ScanHook.class)
+class ProductSearchIndexTest {
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void namesRankAboveDescriptionsAndPagesComeFromTheDatabase() {
+        String token = "tok" + System.nanoTime();
+        Product inDescription = createProduct("Described product " + System.nanoTime(), "Mentions " + token + " here");
+        Product inName = createProduct("Lamp " + token, "Plain description");
+        createProduct("Unrelated product " + System.nanoTime(), "Plain description");
+
+        // Changed without an event, the index only decides which products are on the page
+        inName.setQuantity(7);
+        productRepository.save(inName);
+
+        Page<ProductDTO> page = productSearchIndex.search(token.toUpperCase(), PageRequest.of(0, 10, Sort.by("productId")));
+        assertEquals(List.of(inName.getProductId(), inDescription.getProductId()),
+                page.getContent().stream().map(ProductDTO::getProductId).toList());
+        assertEquals(7, page.getContent().get(0).getQuantity());
+    }
+
+    @Test
+    void keywordsShorterThanATrigramAreRejected() {
+        assertThrows(APIException.class, () -> productSearchIndex.search(" ab ", PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void changesCommittedDuringARebuildAreKept() {
+        String token = "tok" + System.nanoTime();
+        Product product = createProduct("Before " + token, "Renamed during the rebuild");
+
+        // The product is renamed once the first batch has been read, before the batch is indexed
+        AtomicBoolean renamed = new AtomicBoolean();
+        ScanHook.afterBatch = () -> {
+            if (renamed.compareAndSet(false, true)) {
+                product.setProductName("After " + token);
+                productRepository.save(product);
+                productSearchIndex.onProductChanged(new ProductChangedEvent(Set.of(), Set.of(product.getProductId())));
+            }
+        };
+        try {
+            productSearchIndex.rebuild();
+        } finally {
+            ScanHook.afterBatch = null;
+        }
+
+        assertTrue(renamed.get());
+        assertEquals(1, productSearchIndex.search("after " + token, PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(0, productSearchIndex.search("before " + token, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    // Indexed through the change event, as the product service does
+    private Product createProduct(String name, String description) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setDescription(description);
+        product.setQuantity(10);
+        product.setPrice(10.0);
+        product.setSpecialPrice(10.0);
+        product = productRepository.save(product);
+        productSearchIndex.onProductChanged(new ProductChangedEvent(Set.of(), Set.of(product.getProductId())));
+        return product;
+    }
+
+    // Runs afterBatch each time a batch of the keyset scan has been read
+    @TestConfiguration
+    static class ScanHook {
+        static volatile Runnable afterBatch;
+
+        @Bean
+        static BeanPostProcessor productScanHook() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof ProductRepository repository)) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(ProductRepository.class.getClassLoader(), new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> {
+                        Object result;
+                        try {
+                            result = method.invoke(repository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        Runnable hook = afterBatch;
+                        if (hook != null && method.getName().equals("findBy")) {
+                            hook.run();
+                        }
+                        return result;
+                    });
+                }
+            };
+        }
+    }
+}
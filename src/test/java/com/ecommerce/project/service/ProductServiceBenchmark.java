@@ -0,0 +1,22 @@
+package com.ecommerce.project.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductServiceBenchmark {
+    // Non-final so that the JIT cannot fold the calculation into a constant
+    private double price = 1299.0;
+    private double discount = 15.0;
+
+    @Benchmark
+    public double calculateSpecialPrice() {
+        return ProductServiceImpl.calculateSpecialPrice(price, discount);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ecommerce.project.service;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import com.ecommerce.project.model.Category;
+import com.ecommerce.project.model.Product;
+import com.ecommerce.project.model.User;
+import com.ecommerce.project.payload.PaginationResponse;
+import com.ecommerce.project.payload.ProductDTO;
+import com.ecommerce.project.repositories.CartRepository;
+import com.ecommerce.project.repositories.CategoryRepository;
+import com.ecommerce.project.repositories.ProductRepository;
+import com.ecommerce.project.repositories.UserRepository;
+import com.ecommerce.project.util.Money;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductServiceTest {
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void productPageDoesNotLoadCartItems() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Product product = new Product();
+            product.setProductName("Catalog page product " + i);
+            product.setDescription("Catalog page product description");
+            product.setQuantity(100);
+            product.setPrice(10.0);
+            product.setSpecialPrice(10.0);
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+
+        for (int i = 0; i < 5; i++) {
+            Cart cart = new Cart();
+            cart.setUser(userRepository.save(new User("catalog" + i, "catalog" + i + "@example.com", "password")));
+            for (Product product : products) {
+                CartItem cartItem = new CartItem();
+                cartItem.setCart(cart);
+                cartItem.setProduct(product);
+                cartItem.setQuantity(1);
+                cartItem.setDiscount(0.0);
+                cartItem.setProductPrice(Money.of(product.getSpecialPrice()));
+                cart.getCartItems().add(cartItem);
+            }
+            cartRepository.save(cart);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        PaginationResponse<ProductDTO> page = productService.getAllProducts(0, 50, "productId", "asc");
+
+        assertEquals(50, page.getContent().size());
+        // One select for the page and one for the total count, however many carts hold the products
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    void categoryPagesAreCachedUntilAProductOfTheCategoryChanges() {
+        Long books = categoryRepository.save(new Category(null, "Cached books")).getCategoryId();
+        Long games = categoryRepository.save(new Category(null, "Cached games")).getCategoryId();
+        ProductDTO book = productService.addProduct(books, newProduct("Cached book"));
+        productService.addProduct(games, newProduct("Cached game"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        productService.searchByCategory(books, 0, 10, "productId", "asc");
+        productService.searchByCategory(games, 0, 10, "productId", "asc");
+
+        statistics.clear();
+        productService.searchByCategory(books, 0, 10, "productId", "asc");
+        productService.searchByCategory(games, 0, 10, "productId", "asc");
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        book.setPrice(50.0);
+        productService.updateProduct(book.getProductId(), book);
+
+        statistics.clear();
+        PaginationResponse<ProductDTO> bookPage = productService.searchByCategory(books, 0, 10, "productId", "asc");
+        assertEquals(50.0, bookPage.getContent().get(0).getSpecialPrice());
+        assertTrue(statistics.getPrepareStatementCount() > 0);
+
+        // Pages of other categories stay cached
+        statistics.clear();
+        productService.searchByCategory(games, 0, 10, "productId", "asc");
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private static ProductDTO newProduct(String name) {
+        ProductDTO product = new ProductDTO();
+        product.setProductName(name);
+        product.setDescription("Cached product description");
+        product.setQuantity(10);
+        product.setPrice(100.0);
+        return product;
+    }
+}
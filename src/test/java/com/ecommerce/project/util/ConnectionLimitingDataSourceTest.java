@@ -0,0 +1,30 @@
+package com.ecommerce.project.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Test
+    void connectionsAboveTheLimitWaitForAClose() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:limiter"), 1, 50
+        );
+
+        Connection connection = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        // Closing twice must not hand out a second permit
+        connection.close();
+        connection.close();
+        try (Connection next = dataSource.getConnection()) {
+            assertTrue(next.isValid(1));
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+    }
+}
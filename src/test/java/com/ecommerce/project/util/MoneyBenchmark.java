@@ -0,0 +1,79 @@
+package com.ecommerce.project.util;
+
+import com.ecommerce.project.model.Cart;
+import com.ecommerce.project.model.CartItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of a cart update with boxed Double amounts (before) against long minor units (after).
+// Run with the GC profiler to see the allocation per update (gc.alloc.rate.norm):
+// mvn -Pbenchmark test -Djmh.args="MoneyBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"1", "20"})
+    private int cartSize;
+
+    // The amounts as the entities used to hold them
+    private Double boxedTotalPrice;
+    private Double[] boxedProductPrices;
+    private Integer[] quantities;
+
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        boxedTotalPrice = 0.0;
+        boxedProductPrices = new Double[cartSize];
+        quantities = new Integer[cartSize];
+        cart = new Cart();
+        for (int i = 0; i < cartSize; i++) {
+            boxedProductPrices[i] = 89.99 + i;
+            quantities[i] = 2;
+            boxedTotalPrice = boxedTotalPrice + boxedProductPrices[i] * quantities[i];
+
+            CartItem cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProductPrice(Money.of(89.99 + i));
+            cartItem.setQuantity(2);
+            cart.getCartItems().add(cartItem);
+        }
+        cart.setTotalPrice(cart.computeTotalPrice());
+    }
+
+    // One +1 click: the line price is added to the stored total
+    @Benchmark
+    public Double boxedUpdate() {
+        boxedTotalPrice = boxedTotalPrice + boxedProductPrices[0] * 1;
+        return boxedTotalPrice;
+    }
+
+    @Benchmark
+    public long minorUnitsUpdate() {
+        cart.setTotalPrice(cart.getTotalPrice() + Money.times(cart.getCartItems().get(0).getProductPrice(), 1));
+        return cart.getTotalPrice();
+    }
+
+    // Full recompute of the total from the lines
+    @Benchmark
+    public Double boxedTotal() {
+        Double total = 0.0;
+        for (int i = 0; i < cartSize; i++) {
+            total = total + boxedProductPrices[i] * quantities[i];
+        }
+        boxedTotalPrice = total;
+        return boxedTotalPrice;
+    }
+
+    @Benchmark
+    public long minorUnitsTotal() {
+        cart.setTotalPrice(cart.computeTotalPrice());
+        return cart.getTotalPrice();
+    }
+}